@@ -3,9 +3,17 @@ package org.foxesworld.notification;
 import com.formdev.flatlaf.ui.FlatUIUtils;
 import com.formdev.flatlaf.util.Animator;
 import com.formdev.flatlaf.util.UIScale;
+import org.foxesworld.notification.ui.LayeredPaneSurface;
 import org.foxesworld.notification.ui.ToastNotificationPanel;
+import org.foxesworld.notification.ui.ToastOverlay;
+import org.foxesworld.notification.ui.ToastSurface;
+import org.foxesworld.notification.ui.WindowSurface;
+import org.foxesworld.notification.util.AnimationClock;
 import org.foxesworld.notification.util.NotificationHolder;
+import org.foxesworld.notification.util.RateLimiter;
+import org.foxesworld.notification.util.ToastScheduler;
 import org.foxesworld.notification.util.UIUtils;
+import org.foxesworld.notification.util.WindowPool;
 
 import javax.swing.*;
 import java.awt.*;
@@ -14,27 +22,44 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 @SuppressWarnings("unused")
 public class Notification {
 
     private JFrame frame;
-    private final Map<Location, List<NotificationAnimation>> lists = new HashMap<>();
-    private final NotificationHolder notificationHolder = new NotificationHolder();
+    private final Map<Location, ToastStack> stacks = new HashMap<>();
+    private final Map<Location, ToastOverlay> overlays = new EnumMap<>(Location.class);
+    private final NotificationHolder notificationHolder = new NotificationHolder(this::holdExpired);
+    private final Map<CoalesceKey, NotificationAnimation> coalesced = new LinkedHashMap<>();
+    private final Map<Location, NotificationAnimation> summaries = new EnumMap<>(Location.class);
+    private final Map<Location, ScheduledFuture<?>> drainTasks = new HashMap<>();
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final Queue<List<NotificationAnimation>> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean ingestPending = new AtomicBoolean();
+    private final Set<Location> dirtyLocations = new HashSet<>();
+    private boolean layoutPending;
+    private boolean movePending;
+    private boolean moveResized;
+    private long admittedCount;
+    private long rejectedCount;
     private ComponentListener windowEvent;
+    private RenderMode renderMode;
 
     private void installEvent(JFrame frame) {
         if (windowEvent == null && frame != null) {
             windowEvent = new ComponentAdapter() {
                 @Override
                 public void componentMoved(ComponentEvent e) {
-                    move(frame.getBounds());
+                    move(false);
                 }
 
                 @Override
                 public void componentResized(ComponentEvent e) {
-                    move(frame.getBounds());
+                    move(true);
                 }
             };
         }
@@ -43,20 +68,67 @@ public class Notification {
         }
         if (frame != null) {
             frame.addComponentListener(windowEvent);
+            if (getRenderMode() == RenderMode.WINDOW) {
+                // only the window mode takes its surfaces from the pool, the other modes never create toast windows
+                WindowPool.getInstance().prepare(frame);
+            }
+        }
+        if (this.frame != frame) {
+            disposeOverlays();
         }
         this.frame = frame;
     }
 
+    private void disposeOverlays() {
+        for (ToastOverlay overlay : overlays.values()) {
+            overlay.dispose();
+        }
+        overlays.clear();
+    }
+
+    private ToastSurface createSurface(Location location) {
+        RenderMode mode = getRenderMode();
+        if (frame != null && mode == RenderMode.LAYERED_PANE) {
+            return new LayeredPaneSurface(frame.getLayeredPane());
+        }
+        if (location != null && mode == RenderMode.COMPOSITOR) {
+            ToastOverlay overlay = overlays.get(location);
+            if (overlay == null) {
+                overlay = new ToastOverlay(frame);
+                overlays.put(location, overlay);
+            }
+            return overlay.createSurface();
+        }
+        return new WindowSurface(frame);
+    }
+
     private int getCurrentShowCount(Location location) {
-        List<NotificationAnimation> list = lists.get(location);
-        return list == null ? 0 : list.size();
+        ToastStack stack = stacks.get(location);
+        return stack == null ? 0 : stack.toasts.size();
     }
 
-    private synchronized void move(Rectangle rectangle) {
-        for (Map.Entry<Location, List<NotificationAnimation>> set : lists.entrySet()) {
-            for (NotificationAnimation an : set.getValue()) {
-                if (an != null) {
-                    an.move(rectangle);
+    private synchronized void move(boolean resized) {
+        // drag and resize events arrive faster than frames, only the last state of a frame is applied
+        moveResized |= resized;
+        if (!movePending) {
+            movePending = true;
+            AnimationClock.getInstance().invokeBeforeFrame(this::applyMove);
+        }
+    }
+
+    private synchronized void applyMove() {
+        boolean resized = moveResized;
+        movePending = false;
+        moveResized = false;
+        for (Map.Entry<Location, ToastStack> entry : stacks.entrySet()) {
+            if (entry.getKey() == null) {
+                // rectangle toasts keep the position they were created with
+                continue;
+            }
+            ToastStack stack = entry.getValue();
+            for (NotificationAnimation an : stack.toasts) {
+                if ((resized || !an.surface.isParentRelative()) && an.move(an.surface.getParentBounds())) {
+                    stack.place(an);
                 }
             }
         }
@@ -66,6 +138,27 @@ public class Notification {
         installEvent(frame);
     }
 
+    public RenderMode getRenderMode() {
+        if (renderMode != null) {
+            return renderMode;
+        }
+        String mode = UIUtils.getString("Toast.renderMode", "window");
+        if (mode.equalsIgnoreCase("compositor")) {
+            return RenderMode.COMPOSITOR;
+        } else if (mode.equalsIgnoreCase("layeredPane")) {
+            return RenderMode.LAYERED_PANE;
+        } else {
+            return RenderMode.WINDOW;
+        }
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+        if (frame != null && getRenderMode() == RenderMode.WINDOW) {
+            WindowPool.getInstance().prepare(frame);
+        }
+    }
+
     public void show(Type type, String message) {
         show(type, Location.TOP_CENTER, message);
     }
@@ -80,11 +173,15 @@ public class Notification {
     }
 
     public void show(Type type, Location location, long duration, String message) {
-        initStart(new NotificationAnimation(type, location, duration, message), duration);
+        show(type, location, duration, message, getDefaultPriority(type));
+    }
+
+    public void show(Type type, Location location, long duration, String message, int priority) {
+        post(new NotificationAnimation(type, location, duration, message, priority));
     }
 
     public void show(Type type, Rectangle location, long duration, String message) {
-        initStart(new NotificationAnimation(type, location, duration, message), duration);
+        post(new NotificationAnimation(type, location, duration, message));
     }
 
     public void show(JComponent component) {
@@ -97,58 +194,307 @@ public class Notification {
     }
 
     public void show(Location location, long duration, JComponent component) {
-        initStart(new NotificationAnimation(location, duration, component), duration);
+        post(new NotificationAnimation(location, duration, component));
+    }
+
+    public void show(Location location, long duration, JComponent component, int priority) {
+        post(new NotificationAnimation(location, duration, component, priority));
+    }
+
+    public void showAll(Collection<Request> requests) {
+        List<NotificationAnimation> batch = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            batch.add(request.createAnimation(this));
+        }
+        if (!batch.isEmpty()) {
+            post(batch);
+        }
+    }
+
+    private void post(NotificationAnimation notificationAnimation) {
+        post(Collections.singletonList(notificationAnimation));
+    }
+
+    private void post(List<NotificationAnimation> batch) {
+        // a batch is queued as one element, so it is always drained by the same frame
+        requests.offer(batch);
+        if (ingestPending.compareAndSet(false, true)) {
+            AnimationClock.getInstance().invokeBeforeFrame(this::ingest);
+        }
+    }
+
+    private synchronized void ingest() {
+        ingestPending.set(false);
+        List<NotificationAnimation> batch;
+        while ((batch = requests.poll()) != null) {
+            for (NotificationAnimation notificationAnimation : batch) {
+                if (!notificationAnimation.close) {
+                    admit(notificationAnimation);
+                }
+            }
+        }
+    }
+
+    private void admit(NotificationAnimation notificationAnimation) {
+        if (notificationAnimation.component == null && notificationAnimation.location != null) {
+            CoalesceKey key = new CoalesceKey(notificationAnimation.type, notificationAnimation.location, notificationAnimation.message);
+            if (coalesce(key)) {
+                return;
+            }
+            putCoalesce(key, notificationAnimation);
+        }
+        initStart(notificationAnimation, notificationAnimation.getDuration());
+    }
+
+    private void invalidateLayout(NotificationAnimation notificationAnimation) {
+        ToastStack stack = stacks.get(notificationAnimation.location);
+        if (stack == null) {
+            return;
+        }
+        stack.invalidate(notificationAnimation.index);
+        dirtyLocations.add(notificationAnimation.location);
+        if (!layoutPending) {
+            layoutPending = true;
+            AnimationClock.getInstance().invokeAfterFrame(this::layout);
+        }
+    }
+
+    private synchronized void layout() {
+        layoutPending = false;
+        for (Location location : dirtyLocations) {
+            ToastStack stack = stacks.get(location);
+            if (stack != null) {
+                stack.layout();
+            }
+        }
+        dirtyLocations.clear();
+    }
+
+    private boolean coalesce(CoalesceKey key) {
+        int window = FlatUIUtils.getUIInt("Toast.coalesceWindow", 1000);
+        NotificationAnimation an = window < 0 ? null : coalesced.get(key);
+        if (an != null && an.held) {
+            // a held toast may be past Toast.holdTimeToLive without being discarded yet, expiring it closes it
+            notificationHolder.expire(an.location);
+        }
+        long time = System.currentTimeMillis();
+        if (an != null && an.isShowing() && time - an.coalesceTime <= window) {
+            an.coalesce(time);
+            // the merge renews the coalesce time, so the entry moves to the end to keep the map ordered by time
+            coalesced.remove(key);
+            coalesced.put(key, an);
+            return true;
+        }
+        return false;
+    }
+
+    private void putCoalesce(CoalesceKey key, NotificationAnimation notificationAnimation) {
+        int window = FlatUIUtils.getUIInt("Toast.coalesceWindow", 1000);
+        if (window < 0) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        Iterator<NotificationAnimation> iterator = coalesced.values().iterator();
+        while (iterator.hasNext()) {
+            if (time - iterator.next().coalesceTime <= window) {
+                break;
+            }
+            iterator.remove();
+        }
+        notificationAnimation.coalesceTime = time;
+        notificationAnimation.coalesceKey = key;
+        coalesced.remove(key);
+        coalesced.put(key, notificationAnimation);
+    }
+
+    private static int getDefaultPriority(Type type) {
+        if (type == Type.ERROR) {
+            return 3;
+        } else if (type == Type.WARNING) {
+            return 2;
+        } else {
+            return 1;
+        }
     }
 
     private synchronized boolean initStart(NotificationAnimation notificationAnimation, long duration) {
-        int limit = FlatUIUtils.getUIInt("Toast.limit", -1);
-        if (limit == -1 || getCurrentShowCount(notificationAnimation.getLocation()) < limit) {
+        Location location = notificationAnimation.getLocation();
+        if (notificationHolder.getHoldCount(location) == 0 && canStart(location) && rateLimiter.tryAcquire(location)) {
+            admittedCount++;
             notificationAnimation.start();
             return true;
         } else {
-            notificationHolder.hold(notificationAnimation);
+            hold(notificationAnimation);
+            scheduleDrain(location);
             return false;
         }
     }
 
-    private synchronized void notificationClose(NotificationAnimation notificationAnimation) {
-        NotificationAnimation hold = notificationHolder.getHold(notificationAnimation.getLocation());
-        if (hold != null) {
-            if (initStart(hold, hold.getDuration())) {
-                notificationHolder.removeHold(hold);
+    private void hold(NotificationAnimation notificationAnimation) {
+        Location location = notificationAnimation.getLocation();
+        // with a rate limit toasts are held even below Toast.limit, so the hold gets a bound unless one is configured
+        int capacity = FlatUIUtils.getUIInt("Toast.holdCapacity", rateLimiter.isEnabled() ? 50 : -1);
+        if (capacity >= 0 && notificationHolder.getHoldCount(location) >= capacity) {
+            String policy = UIUtils.getString("Toast.overflowPolicy", "dropNewest");
+            if (policy.equalsIgnoreCase("dropOldest") && capacity > 0) {
+                reject(notificationHolder.pollOldest(location));
+            } else {
+                reject(notificationAnimation);
+                if (policy.equalsIgnoreCase("summary") && location != null) {
+                    showSummary(location);
+                }
+                return;
+            }
+        }
+        notificationAnimation.held = true;
+        notificationHolder.hold(notificationAnimation);
+    }
+
+    private synchronized void holdExpired(NotificationAnimation notificationAnimation) {
+        dropHold(notificationAnimation);
+    }
+
+    private void dropHold(NotificationAnimation notificationAnimation) {
+        // a dropped toast is never shown, so it must not take further duplicates or keep its coalesce window open
+        notificationAnimation.held = false;
+        notificationAnimation.close = true;
+        CoalesceKey key = notificationAnimation.coalesceKey;
+        if (key != null && coalesced.get(key) == notificationAnimation) {
+            coalesced.remove(key);
+        }
+    }
+
+    private void reject(NotificationAnimation notificationAnimation) {
+        if (notificationAnimation != null) {
+            dropHold(notificationAnimation);
+            rejectedCount++;
+        }
+    }
+
+    private void showSummary(Location location) {
+        NotificationAnimation summary = summaries.get(location);
+        if (summary != null && summary.isShowing()) {
+            summary.coalesce(System.currentTimeMillis());
+            return;
+        }
+        String message = UIUtils.getString("Toast.overflowMessage", "Some notifications were suppressed");
+        long duration = FlatUIUtils.getUIInt("Toast.duration", 2500);
+        summary = new NotificationAnimation(Type.WARNING, location, duration, message, Integer.MAX_VALUE);
+        summaries.put(location, summary);
+        // the hold is full at this point, so the summary skips Toast.holdCapacity but still waits for Toast.limit and the rate limit
+        if (notificationHolder.getHoldCount(location) == 0 && canStart(location) && rateLimiter.tryAcquire(location)) {
+            admittedCount++;
+            summary.start();
+        } else {
+            summary.held = true;
+            notificationHolder.hold(summary);
+            scheduleDrain(location);
+        }
+    }
+
+    private void scheduleDrain(Location location) {
+        if (drainTasks.get(location) == null && notificationHolder.getHoldCount(location) > 0 && canStart(location)) {
+            long delay = rateLimiter.getDelay(location);
+            drainTasks.put(location, ToastScheduler.getInstance().schedule(() -> drain(location), delay));
+        }
+    }
+
+    private synchronized void drain(Location location) {
+        // a close drains right away, the scheduled drain is then no longer needed
+        ToastScheduler.getInstance().cancel(drainTasks.remove(location));
+        while (canStart(location) && notificationHolder.getHoldCount(location) > 0 && rateLimiter.tryAcquire(location)) {
+            NotificationAnimation hold = notificationHolder.pollHold(location);
+            if (hold == null) {
+                // the last held toast expired after the check, its token goes back to the bucket
+                rateLimiter.release(location);
+                break;
             }
+            hold.held = false;
+            admittedCount++;
+            hold.start();
         }
+        scheduleDrain(location);
+    }
+
+    private synchronized void notificationClose(NotificationAnimation notificationAnimation) {
+        drain(notificationAnimation.getLocation());
+    }
+
+    private boolean canStart(Location location) {
+        int limit = FlatUIUtils.getUIInt("Toast.limit", -1);
+        return limit == -1 || getCurrentShowCount(location) < limit;
     }
 
     public void clearAll() {
-        notificationHolder.clearHold();
-        for (Map.Entry<Location, List<NotificationAnimation>> set : lists.entrySet()) {
-            for (NotificationAnimation an : set.getValue()) {
-                if (an != null) {
-                    an.close();
+        requests.clear();
+        invokeOnEventThread(() -> closeShown(null, true));
+    }
+
+    public void clear(Location location) {
+        for (List<NotificationAnimation> batch : requests) {
+            for (NotificationAnimation an : batch) {
+                if (an.location == location) {
+                    an.close = true;
                 }
             }
         }
+        invokeOnEventThread(() -> closeShown(location, false));
     }
 
-    public void clear(Location location) {
-        notificationHolder.clearHold(location);
-        List<NotificationAnimation> list = lists.get(location);
-        if (list != null) {
-            for (NotificationAnimation an : list) {
-                if (an != null) {
+    private synchronized void closeShown(Location location, boolean all) {
+        // the stacks and the hold are only changed on the event dispatch thread, so they are cleared there too
+        if (all) {
+            clearHold();
+        } else {
+            clearHold(location);
+        }
+        for (Map.Entry<Location, ToastStack> entry : stacks.entrySet()) {
+            if (all || entry.getKey() == location) {
+                for (NotificationAnimation an : entry.getValue().toasts) {
                     an.close();
                 }
             }
         }
     }
 
-    public void clearHold() {
-        notificationHolder.clearHold();
+    private static void invokeOnEventThread(Runnable runnable) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+        } else {
+            SwingUtilities.invokeLater(runnable);
+        }
+    }
+
+    public synchronized void clearHold() {
+        for (NotificationAnimation an : notificationHolder.clearHold()) {
+            dropHold(an);
+        }
+    }
+
+    public synchronized void clearHold(Location location) {
+        for (NotificationAnimation an : notificationHolder.clearHold(location)) {
+            dropHold(an);
+        }
+    }
+
+    public int getHoldCount() {
+        return notificationHolder.getHoldCount();
+    }
+
+    public int getHoldCount(Location location) {
+        return notificationHolder.getHoldCount(location);
+    }
+
+    public long getExpiredCount() {
+        return notificationHolder.getExpiredCount();
+    }
+
+    public synchronized long getAdmittedCount() {
+        return admittedCount;
     }
 
-    public void clearHold(Location location) {
-        notificationHolder.clearHold(location);
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
     }
 
     protected ToastNotificationPanel createNotification(Type type, String message) {
@@ -158,24 +504,92 @@ public class Notification {
     }
 
     private synchronized void updateList(Location key, NotificationAnimation values, boolean add) {
+        ToastStack stack = stacks.get(key);
         if (add) {
-            if (lists.containsKey(key)) {
-                lists.get(key).add(values);
-            } else {
-                List<NotificationAnimation> list = new ArrayList<>();
-                list.add(values);
-                lists.put(key, list);
+            if (stack == null) {
+                stack = new ToastStack(key);
+                stacks.put(key, stack);
             }
-        } else {
-            if (lists.containsKey(key)) {
-                lists.get(key).remove(values);
-                if (lists.get(key).isEmpty()) {
-                    lists.remove(key);
+            stack.add(values);
+        } else if (stack != null) {
+            stack.remove(values);
+            if (stack.toasts.isEmpty()) {
+                stacks.remove(key);
+            } else {
+                dirtyLocations.add(key);
+                if (!layoutPending) {
+                    layoutPending = true;
+                    AnimationClock.getInstance().invokeAfterFrame(this::layout);
                 }
             }
         }
     }
 
+    private class ToastStack {
+
+        private final List<NotificationAnimation> toasts = new ArrayList<>();
+        private final boolean top;
+        private int[] offsets = new int[8];
+        private int dirtyFrom;
+
+        private ToastStack(Location location) {
+            top = location == Location.TOP_LEFT || location == Location.TOP_CENTER || location == Location.TOP_RIGHT;
+        }
+
+        private void add(NotificationAnimation an) {
+            an.index = toasts.size();
+            toasts.add(an);
+            invalidate(an.index);
+        }
+
+        private void remove(NotificationAnimation an) {
+            int index = toasts.indexOf(an);
+            if (index < 0) {
+                return;
+            }
+            toasts.remove(index);
+            for (int i = index; i < toasts.size(); i++) {
+                toasts.get(i).index = i;
+            }
+            invalidate(index);
+        }
+
+        private void place(NotificationAnimation an) {
+            // a stale offset is recomputed by the pending layout pass anyway
+            if (an.index < dirtyFrom) {
+                an.updateLocation(offsets[an.index]);
+            }
+        }
+
+        private void invalidate(int index) {
+            dirtyFrom = Math.min(dirtyFrom, index);
+        }
+
+        private void layout() {
+            int size = toasts.size();
+            if (offsets.length < size) {
+                offsets = Arrays.copyOf(offsets, Math.max(size, offsets.length * 2));
+            }
+            // offsets before the first changed toast are still valid, everything after it is a running sum from there
+            int offset = 0;
+            if (dirtyFrom > 0 && dirtyFrom <= size) {
+                offset = next(offsets[dirtyFrom - 1], toasts.get(dirtyFrom - 1));
+            }
+            for (int i = dirtyFrom; i < size; i++) {
+                NotificationAnimation an = toasts.get(i);
+                offsets[i] = offset;
+                an.updateLocation(offset);
+                offset = next(offset, an);
+            }
+            dirtyFrom = size;
+        }
+
+        private int next(int offset, NotificationAnimation an) {
+            double v = an.animate * (an.surface.getHeight() + UIScale.scale(an.horizontalSpace));
+            return (int) (offset + (top ? v : -v));
+        }
+    }
+
     public enum Type {
         SUCCESS, INFO, WARNING, ERROR
     }
@@ -184,10 +598,15 @@ public class Notification {
         TOP_LEFT, TOP_CENTER, TOP_RIGHT, BOTTOM_LEFT, BOTTOM_CENTER, BOTTOM_RIGHT
     }
 
+    public enum RenderMode {
+        WINDOW, COMPOSITOR, LAYERED_PANE
+    }
+
     public class NotificationAnimation {
 
-        private final JWindow window;
-        private Animator animator;
+        private ToastSurface surface;
+        private AnimationClock.Animation animator;
+        private ScheduledFuture<?> dismissTask;
         private boolean show = true;
         private float animate;
         private int x;
@@ -195,54 +614,85 @@ public class Notification {
         private Location location;
         private Rectangle rectangle;
         private final long duration;
+        private final int priority;
+        private Type type;
+        private String message;
+        private JComponent component;
+        private ToastNotificationPanel toastNotificationPanel;
+        private int occurrences = 1;
+        private long coalesceTime;
+        private CoalesceKey coalesceKey;
+        private boolean held;
+        private int index;
+        private int locationX = Integer.MIN_VALUE;
+        private int locationY = Integer.MIN_VALUE;
+        private float opacity = -1f;
+        private boolean pendingShow;
         private Insets frameInsets;
         private int horizontalSpace;
         private int animationMove;
         private boolean top;
-        private boolean close = false;
+        private volatile boolean close = false;
 
         public NotificationAnimation(Type type, Location location, long duration, String message) {
+            this(type, location, duration, message, getDefaultPriority(type));
+        }
+
+        public NotificationAnimation(Type type, Location location, long duration, String message, int priority) {
             installDefault();
+            this.type = type;
             this.location = location;
             this.duration = duration;
-            window = new JWindow(frame);
-            ToastNotificationPanel toastNotificationPanel = createNotification(type, message);
-            toastNotificationPanel.putClientProperty(ToastClientProperties.TOAST_CLOSE_CALLBACK, (Consumer) o -> close());
-            window.setContentPane(toastNotificationPanel);
-            window.setFocusableWindowState(false);
-            window.pack();
-            toastNotificationPanel.setDialog(window);
+            this.message = message;
+            this.priority = priority;
         }
 
         public NotificationAnimation(Type type, Rectangle rectangle, long duration, String message) {
+            this(type, rectangle, duration, message, getDefaultPriority(type));
+        }
+
+        public NotificationAnimation(Type type, Rectangle rectangle, long duration, String message, int priority) {
             installDefault();
+            this.type = type;
             this.rectangle = rectangle;
             this.duration = duration;
-            window = new JWindow(frame);
-            ToastNotificationPanel toastNotificationPanel = createNotification(type, message);
-            toastNotificationPanel.putClientProperty(ToastClientProperties.TOAST_CLOSE_CALLBACK, (Consumer) o -> close());
-            window.setBackground(new Color(0, 0, 0, 0));
-            window.setContentPane(toastNotificationPanel);
-            window.setFocusableWindowState(false);
-            window.pack();
-            toastNotificationPanel.setDialog(window);
-
-            Rectangle frameBounds = frame.getBounds();
-            x = frameBounds.x + rectangle.x;
-            y = frameBounds.y + rectangle.y;
-            toastNotificationPanel.getWindow().setSize(rectangle.width, rectangle.height);
-            window.setLocation(x, y);
+            this.message = message;
+            this.priority = priority;
         }
 
         public NotificationAnimation(Location location, long duration, JComponent component) {
+            this(location, duration, component, getDefaultPriority(null));
+        }
+
+        public NotificationAnimation(Location location, long duration, JComponent component, int priority) {
             installDefault();
             this.location = location;
             this.duration = duration;
-            window = new JWindow(frame);
-            window.setBackground(new Color(0, 0, 0, 0));
-            window.setContentPane(component);
-            window.setFocusableWindowState(false);
-            window.setSize(component.getPreferredSize());
+            this.component = component;
+            this.priority = priority;
+        }
+
+        private void installSurface() {
+            // the surface and content are only created once the toast starts, so held toasts that expire never create a window
+            surface = createSurface(location);
+            if (component != null) {
+                surface.setContent(component);
+                Dimension size = component.getPreferredSize();
+                surface.setSize(size.width, size.height);
+                return;
+            }
+            toastNotificationPanel = createNotification(type, message);
+            toastNotificationPanel.putClientProperty(ToastClientProperties.TOAST_CLOSE_CALLBACK, (Consumer) o -> close());
+            toastNotificationPanel.setOccurrences(occurrences);
+            surface.setContent(toastNotificationPanel);
+            surface.pack();
+            if (rectangle != null) {
+                Rectangle frameBounds = surface.getParentBounds();
+                x = frameBounds.x + rectangle.x;
+                y = frameBounds.y + rectangle.y;
+                surface.setSize(rectangle.width, rectangle.height);
+                surface.setLocation(x, y);
+            }
         }
 
         private void installDefault() {
@@ -252,41 +702,42 @@ public class Notification {
         }
 
         public void start() {
+            if (surface == null) {
+                installSurface();
+            }
+            // count the toast against Toast.limit right away, a drain may start several before the first frame
+            updateList(location, this, true);
             int animation = FlatUIUtils.getUIInt("Toast.animation", 200);
             int resolution = FlatUIUtils.getUIInt("Toast.animationResolution", 5);
-            animator = new Animator(animation, new Animator.TimingTarget() {
+            AnimationClock clock = AnimationClock.getInstance();
+            clock.setResolution(resolution);
+            animator = clock.createAnimation(animation, new Animator.TimingTarget() {
                 @Override
                 public void begin() {
                     if (show) {
-                        updateList(location, NotificationAnimation.this, true);
                         installLocation();
                     }
+                    surface.setAnimating(true);
                 }
 
                 @Override
                 public void timingEvent(float f) {
                     animate = show ? f : 1f - f;
-                    updateLocation(true);
+                    invalidateLayout(NotificationAnimation.this);
                 }
 
                 @Override
                 public void end() {
                     if (show && !close) {
-                        SwingUtilities.invokeLater(() -> new Thread(() -> {
-                            sleep(duration);
-                            if (!close) {
-                                show = false;
-                                animator.start();
-                            }
-                        }).start());
+                        surface.setAnimating(false);
+                        scheduleDismiss(duration);
                     } else {
                         updateList(location, NotificationAnimation.this, false);
-                        window.dispose();
+                        surface.dispose();
                         notificationClose(NotificationAnimation.this);
                     }
                 }
             });
-            animator.setResolution(resolution);
             animator.start();
         }
 
@@ -295,16 +746,22 @@ public class Notification {
                 // Координаты уже установлены в конструкторе
             } else {
                 Insets insets = UIScale.scale(frameInsets);
-                Rectangle rec = frame.getBounds();
+                Rectangle rec = surface.getParentBounds();
                 setupLocation(rec, insets);
             }
-            window.setOpacity(0f);
-            window.setVisible(true);
+            surface.setOpacity(0f);
+            opacity = 0f;
+            // the surface is shown by the frame's layout pass once it has its place in the stack, so a batch is placed in one pass
+            pendingShow = true;
+            invalidateLayout(this);
         }
 
-        private void move(Rectangle rec) {
+        private boolean move(Rectangle rec) {
+            int oldX = x;
+            int oldY = y;
             Insets insets = UIScale.scale(frameInsets);
             setupLocation(rec, insets);
+            return x != oldX || y != oldY;
         }
 
         private void setupLocation(Rectangle rec, Insets insets) {
@@ -320,65 +777,80 @@ public class Notification {
                     top = true;
                 }
                 case TOP_CENTER -> {
-                    x = rec.x + (rec.width - window.getWidth()) / 2;
+                    x = rec.x + (rec.width - surface.getWidth()) / 2;
                     y = rec.y + insets.top;
                     top = true;
                 }
                 case TOP_RIGHT -> {
-                    x = rec.x + rec.width - (window.getWidth() + insets.right);
+                    x = rec.x + rec.width - (surface.getWidth() + insets.right);
                     y = rec.y + insets.top;
                     top = true;
                 }
                 case BOTTOM_LEFT -> {
                     x = rec.x + insets.left;
-                    y = rec.y + rec.height - (window.getHeight() + insets.bottom);
+                    y = rec.y + rec.height - (surface.getHeight() + insets.bottom);
                     top = false;
                 }
                 case BOTTOM_CENTER -> {
-                    x = rec.x + (rec.width - window.getWidth()) / 2;
-                    y = rec.y + rec.height - (window.getHeight() + insets.bottom);
+                    x = rec.x + (rec.width - surface.getWidth()) / 2;
+                    y = rec.y + rec.height - (surface.getHeight() + insets.bottom);
                     top = false;
                 }
                 case BOTTOM_RIGHT -> {
-                    x = rec.x + rec.width - (window.getWidth() + insets.right);
-                    y = rec.y + rec.height - (window.getHeight() + insets.bottom);
+                    x = rec.x + rec.width - (surface.getWidth() + insets.right);
+                    y = rec.y + rec.height - (surface.getHeight() + insets.bottom);
                     top = false;
                 }
             }
-            int am = UIScale.scale(top ? animationMove : -animationMove);
-            int ly = (int) (getLocation(NotificationAnimation.this) + y + animate * am);
-            window.setLocation(x, ly);
         }
 
-        private void updateLocation(boolean loop) {
+        private void updateLocation(int offset) {
             int am = UIScale.scale(top ? animationMove : -animationMove);
-            int ly = (int) (getLocation(NotificationAnimation.this) + y + animate * am);
-            window.setLocation(x, ly);
-            window.setOpacity(animate);
-            if (loop) {
-                update(this);
+            int ly = (int) (offset + y + animate * am);
+            if (x != locationX || ly != locationY) {
+                locationX = x;
+                locationY = ly;
+                surface.setLocation(x, ly);
+            }
+            if (animate != opacity) {
+                opacity = animate;
+                surface.setOpacity(animate);
+            }
+            if (pendingShow) {
+                pendingShow = false;
+                surface.show();
             }
         }
 
-        private int getLocation(NotificationAnimation notification) {
-            int height = 0;
-            List<NotificationAnimation> list = lists.get(location);
-            for (NotificationAnimation n : list) {
-                if (notification == n) {
-                    return height;
-                }
-                double v = n.animate * (n.window.getHeight() + UIScale.scale(horizontalSpace));
-                height += top ? v : -v;
+        private boolean isShowing() {
+            return show && !close;
+        }
+
+        private void coalesce(long time) {
+            occurrences++;
+            coalesceTime = time;
+            if (toastNotificationPanel != null) {
+                toastNotificationPanel.setOccurrences(occurrences);
+            }
+            if (dismissTask != null) {
+                scheduleDismiss(duration);
             }
-            return height;
         }
 
-        private void update(NotificationAnimation except) {
-            List<NotificationAnimation> list = lists.get(location);
-            for (NotificationAnimation n : list) {
-                if (n != except) {
-                    n.updateLocation(false);
-                }
+        private void scheduleDismiss(long delay) {
+            dismissTask = ToastScheduler.getInstance().reschedule(dismissTask, this::dismiss, delay);
+        }
+
+        private void cancelDismiss() {
+            ToastScheduler.getInstance().cancel(dismissTask);
+            dismissTask = null;
+        }
+
+        private void dismiss() {
+            dismissTask = null;
+            if (show && !close && !animator.isRunning()) {
+                show = false;
+                animator.start();
             }
         }
 
@@ -387,19 +859,13 @@ public class Notification {
                 if (animator.isRunning()) {
                     animator.stop();
                 }
+                cancelDismiss();
                 close = true;
                 show = false;
                 animator.start();
             }
         }
 
-        private void sleep(long l) {
-            try {
-                Thread.sleep(l);
-            } catch (InterruptedException ignored) {
-            }
-        }
-
         public Location getLocation() {
             return location;
         }
@@ -407,6 +873,99 @@ public class Notification {
         public long getDuration() {
             return duration;
         }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    public static class Request {
+
+        private final Type type;
+        private final String message;
+        private final JComponent component;
+        private Location location = Location.TOP_CENTER;
+        private Rectangle rectangle;
+        private long duration = -1;
+        private Integer priority;
+
+        public Request(Type type, String message) {
+            this.type = type;
+            this.message = message;
+            this.component = null;
+        }
+
+        public Request(JComponent component) {
+            this.type = null;
+            this.message = null;
+            this.component = component;
+        }
+
+        public Request location(Location location) {
+            this.location = location;
+            return this;
+        }
+
+        public Request rectangle(Rectangle rectangle) {
+            this.rectangle = rectangle;
+            return this;
+        }
+
+        public Request duration(long duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Request priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        private NotificationAnimation createAnimation(Notification notification) {
+            long duration = this.duration >= 0 ? this.duration : FlatUIUtils.getUIInt("Toast.duration", 2500);
+            int priority = this.priority != null ? this.priority : getDefaultPriority(type);
+            if (component != null) {
+                return notification.new NotificationAnimation(location, duration, component, priority);
+            } else if (rectangle != null) {
+                return notification.new NotificationAnimation(type, rectangle, duration, message, priority);
+            } else {
+                return notification.new NotificationAnimation(type, location, duration, message, priority);
+            }
+        }
+    }
+
+    private static class CoalesceKey {
+
+        private final Type type;
+        private final Location location;
+        private final String message;
+
+        private CoalesceKey(Type type, Location location, String message) {
+            this.type = type;
+            this.location = location;
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CoalesceKey)) {
+                return false;
+            }
+            CoalesceKey key = (CoalesceKey) o;
+            return type == key.type && location == key.location && Objects.equals(message, key.message);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, location, message);
+        }
     }
 
 }
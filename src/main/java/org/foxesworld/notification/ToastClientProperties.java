@@ -6,6 +6,7 @@ public interface ToastClientProperties {
     String TOAST_SHOW_CLOSE_BUTTON = "Toast.showCloseButton";
     String TOAST_CLOSE_CALLBACK = "Toast.closeCallback";
     String TOAST_CLOSE_ICON = "Toast.closeIcon";
+    String TOAST_STYLE = "Toast.style";
     String TOAST_SUCCESS_ICON = "Toast.success.icon";
     String TOAST_INFO_ICON = "Toast.info.icon";
     String TOAST_WARNING_ICON = "Toast.warning.icon";
@@ -4,6 +4,8 @@ import com.formdev.flatlaf.FlatPropertiesLaf;
 import com.formdev.flatlaf.ui.FlatStylingSupport.Styleable;
 import com.formdev.flatlaf.ui.FlatUIUtils;
 import com.formdev.flatlaf.util.UIScale;
+import org.foxesworld.notification.util.RoundRectShadowRenderer;
+import org.foxesworld.notification.util.ShadowCache;
 import org.foxesworld.notification.util.ShadowRenderer;
 
 import javax.swing.*;
@@ -20,6 +22,11 @@ public class DropShadowBorder extends EmptyBorder {
     @Styleable
     protected float shadowOpacity;
 
+    private boolean nineSlice = true;
+    private int parallelThreshold = -1;
+    private boolean rowMajor = true;
+    private boolean analytic;
+
     private Image shadowImage;
     private int shadowSize;
     private Color lastShadowColor;
@@ -28,6 +35,7 @@ public class DropShadowBorder extends EmptyBorder {
     private int lastArc;
     private int lastWidth;
     private int lastHeight;
+    private float lastScale;
 
     public DropShadowBorder() {
         this(new Color(0, 0, 0), new Insets(0, 0, 6, 6), 0.1f);
@@ -51,6 +59,41 @@ public class DropShadowBorder extends EmptyBorder {
         return Math.max(Math.max(shadowInsets.left, shadowInsets.right), Math.max(shadowInsets.top, shadowInsets.bottom));
     }
 
+    public boolean isNineSlice() {
+        return nineSlice;
+    }
+
+    public void setNineSlice(boolean nineSlice) {
+        this.nineSlice = nineSlice;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public boolean isRowMajor() {
+        return rowMajor;
+    }
+
+    public void setRowMajor(boolean rowMajor) {
+        this.rowMajor = rowMajor;
+    }
+
+    public boolean isAnalytic() {
+        return analytic;
+    }
+
+    public void setAnalytic(boolean analytic) {
+        if (this.analytic != analytic) {
+            this.analytic = analytic;
+            shadowImage = null;
+        }
+    }
+
     @Override
     public Insets getBorderInsets() {
         return UIScale.scale(super.getBorderInsets());
@@ -58,20 +101,9 @@ public class DropShadowBorder extends EmptyBorder {
 
     @Override
     public void paintBorder(Component c, Graphics g, int x, int y, int width, int height) {
-        JComponent com = (JComponent) c;
-        int arc = FlatPropertiesLaf.getStyleableValue(com, "arc");
-        boolean useEffect = FlatPropertiesLaf.getStyleableValue(com, "useEffect");
-        if (shadowImage == null || !shadowColor.equals(lastShadowColor) || width != lastWidth || height != lastHeight || shadowSize != lastShadowSize || shadowOpacity != lastShadowOpacity || arc != lastArc) {
-            shadowImage = createShadowImage(width, height, arc);
-
-            lastShadowColor = shadowColor;
-            lastWidth = width;
-            lastHeight = height;
-            lastShadowSize = shadowSize;
-            lastShadowOpacity = shadowOpacity;
-            lastArc = arc;
-        }
-        g.drawImage(shadowImage, 0, 0, null);
+        ToastPanelUI.PaintStyle style = getPaintStyle((JComponent) c);
+        int arc = style.getArc();
+        paintShadow(g, width, height, arc);
         Insets insets = getBorderInsets();
         int lx = insets.left;
         int ly = insets.top;
@@ -86,24 +118,94 @@ public class DropShadowBorder extends EmptyBorder {
             g2.setColor(c.getBackground());
             g2.fillRect(lx, ly, lw, lh);
         }
-        if (useEffect) {
-            createEffect(com, g2, lx, ly, lw, lh, arc);
+        if (style.isUseEffect()) {
+            createEffect(c, style, g2, lx, ly, lw, lh, arc);
         }
-        int outlineWidth = FlatPropertiesLaf.getStyleableValue(com, "outlineWidth");
+        int outlineWidth = style.getOutlineWidth();
         if (outlineWidth > 0) {
-            Color outlineColor = FlatPropertiesLaf.getStyleableValue(com, "outlineColor");
-            g2.setColor(outlineColor);
+            g2.setColor(style.getOutlineColor());
             FlatUIUtils.paintOutline(g2, lx, ly, lw, lh, UIScale.scale(outlineWidth), UIScale.scale(arc));
         }
         g2.dispose();
     }
 
-    private void createEffect(JComponent c, Graphics2D g2, int x, int y, int width, int height, int arc) {
-        Color effectColor = FlatPropertiesLaf.getStyleableValue(c, "effectColor");
-        float effectWidth = FlatPropertiesLaf.getStyleableValue(c, "effectWidth");
-        float effectOpacity = FlatPropertiesLaf.getStyleableValue(c, "effectOpacity");
-        boolean effectRight = FlatPropertiesLaf.getStyleableValue(c, "effectAlignment").equals("right");
-        if (!effectRight) {
+    private ToastPanelUI.PaintStyle getPaintStyle(JComponent c) {
+        if (c instanceof JPanel && ((JPanel) c).getUI() instanceof ToastPanelUI) {
+            ToastPanelUI.PaintStyle style = ((ToastPanelUI) ((JPanel) c).getUI()).getPaintStyle();
+            if (style != null) {
+                return style;
+            }
+        }
+        return new ToastPanelUI.PaintStyle(-1,
+                FlatPropertiesLaf.getStyleableValue(c, "arc"),
+                FlatPropertiesLaf.getStyleableValue(c, "outlineWidth"),
+                FlatPropertiesLaf.getStyleableValue(c, "outlineColor"),
+                FlatPropertiesLaf.getStyleableValue(c, "useEffect"),
+                FlatPropertiesLaf.getStyleableValue(c, "effectColor"),
+                FlatPropertiesLaf.getStyleableValue(c, "effectWidth"),
+                FlatPropertiesLaf.getStyleableValue(c, "effectOpacity"),
+                "right".equals(FlatPropertiesLaf.getStyleableValue(c, "effectAlignment")));
+    }
+
+    private void paintShadow(Graphics g, int width, int height, int arc) {
+        float scale = UIScale.getUserScaleFactor();
+        int inset = getSliceInset(arc);
+        int sliceSize = inset * 2 + 1;
+        boolean sliceX = nineSlice && width > sliceSize;
+        boolean sliceY = nineSlice && height > sliceSize;
+        int imageWidth = sliceX ? sliceSize : width;
+        int imageHeight = sliceY ? sliceSize : height;
+        if (shadowImage == null || !shadowColor.equals(lastShadowColor) || imageWidth != lastWidth || imageHeight != lastHeight || shadowSize != lastShadowSize || shadowOpacity != lastShadowOpacity || arc != lastArc || scale != lastScale) {
+            ShadowCache.Key key = new ShadowCache.Key(imageWidth, imageHeight, arc, shadowSize, shadowColor, shadowOpacity, scale, analytic);
+            shadowImage = ShadowCache.getInstance().get(key, () -> createShadowImage(imageWidth, imageHeight, arc));
+
+            lastShadowColor = shadowColor;
+            lastWidth = imageWidth;
+            lastHeight = imageHeight;
+            lastShadowSize = shadowSize;
+            lastShadowOpacity = shadowOpacity;
+            lastArc = arc;
+            lastScale = scale;
+        }
+        if (sliceX || sliceY) {
+            paintNineSlice(g, shadowImage, sliceX ? inset : -1, sliceY ? inset : -1, width, height);
+        } else {
+            g.drawImage(shadowImage, 0, 0, null);
+        }
+    }
+
+    private int getSliceInset(int arc) {
+        // rows and columns further than the corner radius plus the blur window from an edge are identical
+        return (int) Math.ceil(UIScale.scale(arc * 0.7f)) + UIScale.scale(shadowSize) * 2;
+    }
+
+    private void paintNineSlice(Graphics g, Image image, int insetX, int insetY, int width, int height) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        int[] dx = slices(insetX, width);
+        int[] sx = slices(insetX, insetX < 0 ? width : insetX * 2 + 1);
+        int[] dy = slices(insetY, height);
+        int[] sy = slices(insetY, insetY < 0 ? height : insetY * 2 + 1);
+        for (int i = 0; i < dx.length - 1; i++) {
+            for (int j = 0; j < dy.length - 1; j++) {
+                g2.drawImage(image, dx[i], dy[j], dx[i + 1], dy[j + 1], sx[i], sy[j], sx[i + 1], sy[j + 1], null);
+            }
+        }
+        g2.dispose();
+    }
+
+    private static int[] slices(int inset, int size) {
+        if (inset < 0) {
+            return new int[]{0, size};
+        }
+        return new int[]{0, inset, size - inset, size};
+    }
+
+    private void createEffect(Component c, ToastPanelUI.PaintStyle style, Graphics2D g2, int x, int y, int width, int height, int arc) {
+        Color effectColor = style.getEffectColor();
+        float effectWidth = style.getEffectWidth();
+        float effectOpacity = style.getEffectOpacity();
+        if (!style.isEffectRight()) {
             g2.setPaint(new GradientPaint(x, 0, effectColor, x + (width * effectWidth), 0, c.getBackground()));
         } else {
             g2.setPaint(new GradientPaint(x + width, 0, effectColor, x + width - (width * effectWidth), 0, c.getBackground()));
@@ -122,8 +224,14 @@ public class DropShadowBorder extends EmptyBorder {
         float round = UIScale.scale(arc * 0.7f);
         int shadowWidth = width - size * 2;
         int shadowHeight = height - size * 2;
+        if (analytic) {
+            return new RoundRectShadowRenderer(size, shadowOpacity, shadowColor).createShadow(shadowWidth, shadowHeight, round);
+        }
         Shape shape = FlatUIUtils.createRoundRectanglePath(0, 0, shadowWidth, shadowHeight, round, round, round, round);
-        return new ShadowRenderer(size, shadowOpacity, shadowColor).createShadow(shape);
+        ShadowRenderer renderer = new ShadowRenderer(size, shadowOpacity, shadowColor);
+        renderer.setParallelThreshold(parallelThreshold);
+        renderer.setRowMajor(rowMajor);
+        return renderer.createShadow(shape);
     }
 }
 
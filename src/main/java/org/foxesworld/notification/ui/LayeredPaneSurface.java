@@ -0,0 +1,91 @@
+package org.foxesworld.notification.ui;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class LayeredPaneSurface implements ToastSurface {
+
+    private final JLayeredPane layeredPane;
+    private final ToastLayer layer = new ToastLayer();
+    private boolean visible;
+
+    public LayeredPaneSurface(JLayeredPane layeredPane) {
+        this.layeredPane = layeredPane;
+    }
+
+    @Override
+    public Rectangle getParentBounds() {
+        return new Rectangle(0, 0, layeredPane.getWidth(), layeredPane.getHeight());
+    }
+
+    @Override
+    public boolean isParentRelative() {
+        return true;
+    }
+
+    @Override
+    public void setContent(JComponent content) {
+        layer.setContent(content);
+    }
+
+    @Override
+    public void pack() {
+        Dimension size = layer.getPreferredSize();
+        setSize(size.width, size.height);
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        layer.setSize(width, height);
+        layer.validate();
+    }
+
+    @Override
+    public int getWidth() {
+        return layer.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return layer.getHeight();
+    }
+
+    @Override
+    public void setLocation(int x, int y) {
+        if (layer.getX() != x || layer.getY() != y) {
+            layer.setLocation(x, y);
+        }
+    }
+
+    @Override
+    public void setOpacity(float opacity) {
+        layer.setAlpha(opacity);
+    }
+
+    @Override
+    public void setAnimating(boolean animating) {
+        layer.setSnapshot(animating && FlatUIUtils.getUIBoolean("Toast.animationSnapshot", false));
+    }
+
+    @Override
+    public void show() {
+        if (!visible) {
+            visible = true;
+            layeredPane.add(layer, JLayeredPane.POPUP_LAYER);
+            layer.repaint();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (visible) {
+            visible = false;
+            Rectangle bounds = layer.getBounds();
+            layeredPane.remove(layer);
+            layeredPane.repaint(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
+        layer.setContent(null);
+    }
+}
@@ -0,0 +1,96 @@
+package org.foxesworld.notification.ui;
+
+import com.formdev.flatlaf.util.UIScale;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class ToastLayer extends JComponent {
+
+    private float alpha = 1f;
+    private boolean snapshot;
+    private BufferedImage snapshotImage;
+    private double snapshotScale;
+
+    public ToastLayer() {
+        setLayout(new BorderLayout());
+        setOpaque(false);
+    }
+
+    public void setContent(JComponent content) {
+        removeAll();
+        if (content != null) {
+            add(content);
+        }
+        revalidate();
+        repaint();
+    }
+
+    public JComponent getContent() {
+        return getComponentCount() == 0 ? null : (JComponent) getComponent(0);
+    }
+
+    public float getAlpha() {
+        return alpha;
+    }
+
+    public void setAlpha(float alpha) {
+        alpha = Math.min(Math.max(alpha, 0f), 1f);
+        if (this.alpha != alpha) {
+            this.alpha = alpha;
+            repaint();
+        }
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        if (this.snapshot != snapshot) {
+            this.snapshot = snapshot;
+            snapshotImage = null;
+            repaint();
+        }
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        if (alpha <= 0f) {
+            return;
+        }
+        if (alpha >= 1f && !snapshot) {
+            super.paint(g);
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setComposite(AlphaComposite.SrcOver.derive(alpha));
+            if (snapshot && getWidth() > 0 && getHeight() > 0) {
+                paintSnapshot(g2);
+            } else {
+                super.paint(g2);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private void paintSnapshot(Graphics2D g2) {
+        // the content does not change while it animates, so it is painted once and every frame only draws the image
+        double scale = UIScale.getSystemScaleFactor(g2);
+        int width = (int) Math.ceil(getWidth() * scale);
+        int height = (int) Math.ceil(getHeight() * scale);
+        if (snapshotImage == null || snapshotScale != scale || snapshotImage.getWidth() != width || snapshotImage.getHeight() != height) {
+            snapshotImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            snapshotScale = scale;
+            Graphics2D ig = snapshotImage.createGraphics();
+            ig.scale(scale, scale);
+            super.paint(ig);
+            ig.dispose();
+        }
+        g2.scale(1 / scale, 1 / scale);
+        g2.drawImage(snapshotImage, 0, 0, null);
+    }
+}
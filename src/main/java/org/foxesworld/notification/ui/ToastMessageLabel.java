@@ -0,0 +1,192 @@
+package org.foxesworld.notification.ui;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class ToastMessageLabel extends JComponent {
+
+    private static final int MAX_CACHE_SIZE = 256;
+    private static final Map<Key, Lines> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Lines> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private String text = "";
+    private int wrapWidth = -1;
+
+    public ToastMessageLabel() {
+        updateUI();
+    }
+
+    public ToastMessageLabel(String text) {
+        this();
+        setText(text);
+    }
+
+    @Override
+    public void updateUI() {
+        LookAndFeel.installColorsAndFont(this, "TextPane.background", "TextPane.foreground", "TextPane.font");
+        Insets margin = UIManager.getInsets("TextPane.margin");
+        setBorder(margin != null ? new EmptyBorder(margin) : null);
+        setOpaque(false);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        text = text == null ? "" : text;
+        if (!this.text.equals(text)) {
+            this.text = text;
+            revalidate();
+            repaint();
+        }
+    }
+
+    public int getWrapWidth() {
+        return wrapWidth;
+    }
+
+    public void setWrapWidth(int wrapWidth) {
+        if (this.wrapWidth != wrapWidth) {
+            this.wrapWidth = wrapWidth;
+            revalidate();
+            repaint();
+        }
+    }
+
+    void layoutWrapWidth(int wrapWidth) {
+        // used by the toast layout while it measures this component, so the layout is not invalidated from within itself
+        if (this.wrapWidth != wrapWidth) {
+            this.wrapWidth = wrapWidth;
+            repaint();
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        Insets insets = getInsets();
+        Lines lines = getLines(wrapWidth - insets.left - insets.right);
+        return new Dimension(lines.width + insets.left + insets.right, lines.height + insets.top + insets.bottom);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Insets insets = getInsets();
+        Lines lines = getLines(wrapWidth - insets.left - insets.right);
+        Graphics2D g2 = (Graphics2D) g.create();
+        FlatUIUtils.setRenderingHints(g2);
+        g2.setColor(getForeground());
+        float y = insets.top;
+        for (TextLayout layout : lines.layouts) {
+            y += layout.getAscent();
+            layout.draw(g2, insets.left, y);
+            y += layout.getDescent() + layout.getLeading();
+        }
+        g2.dispose();
+    }
+
+    private Lines getLines(int width) {
+        Font font = getFont();
+        FontRenderContext frc = getFontMetrics(font).getFontRenderContext();
+        Key key = new Key(text, font, frc, width > 0 ? width : -1);
+        synchronized (cache) {
+            Lines lines = cache.get(key);
+            if (lines == null) {
+                lines = createLines(text, font, frc, key.width);
+                cache.put(key, lines);
+            }
+            return lines;
+        }
+    }
+
+    private static Lines createLines(String text, Font font, FontRenderContext frc, int width) {
+        List<TextLayout> layouts = new ArrayList<>();
+        float maxWidth = width > 0 ? width : Float.MAX_VALUE;
+        float lineWidth = 0;
+        float height = 0;
+        for (String paragraph : text.split("\n", -1)) {
+            if (paragraph.isEmpty()) {
+                // an empty line still takes the height of the font, a single space keeps it without drawing anything
+                TextLayout layout = new TextLayout(" ", font, frc);
+                layouts.add(layout);
+                height += layout.getAscent() + layout.getDescent() + layout.getLeading();
+                continue;
+            }
+            AttributedString string = new AttributedString(paragraph);
+            string.addAttribute(TextAttribute.FONT, font);
+            LineBreakMeasurer measurer = new LineBreakMeasurer(string.getIterator(), frc);
+            while (measurer.getPosition() < paragraph.length()) {
+                TextLayout layout = measurer.nextLayout(maxWidth);
+                layouts.add(layout);
+                lineWidth = Math.max(lineWidth, layout.getAdvance());
+                height += layout.getAscent() + layout.getDescent() + layout.getLeading();
+            }
+        }
+        return new Lines(layouts.toArray(new TextLayout[0]), (int) Math.ceil(lineWidth), (int) Math.ceil(height));
+    }
+
+    private static class Lines {
+
+        private final TextLayout[] layouts;
+        private final int width;
+        private final int height;
+
+        private Lines(TextLayout[] layouts, int width, int height) {
+            this.layouts = layouts;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static class Key {
+
+        private final String text;
+        private final Font font;
+        private final FontRenderContext frc;
+        private final int width;
+
+        private Key(String text, Font font, FontRenderContext frc, int width) {
+            this.text = text;
+            this.font = font;
+            this.frc = frc;
+            this.width = width;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width && text.equals(key.text) && font.equals(key.font) && frc.equals(key.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, font, frc, width);
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package org.foxesworld.notification.ui;
 
-import com.formdev.flatlaf.FlatClientProperties;
 import com.formdev.flatlaf.extras.FlatSVGIcon;
+import com.formdev.flatlaf.ui.FlatUIUtils;
 import org.foxesworld.notification.Notification;
 import org.foxesworld.notification.ToastClientProperties;
+import org.foxesworld.notification.util.IconCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,31 +13,28 @@ public class ToastNotificationPanel extends JPanel {
 
     protected JWindow window;
     protected JLabel labelIcon;
+    // only created when Toast.plainTextRenderer is false, messages are shown by messageLabel otherwise
+    @Deprecated
     protected JTextPane textPane;
+    protected ToastMessageLabel messageLabel;
 
     private Notification.Type type;
+    private int occurrences = 1;
 
     public ToastNotificationPanel() {
         installDefault();
     }
 
     private void installPropertyStyle() {
-        String key = getKey();
-        String outlineColor = toTextColor(getDefaultColor());
-        String outline = convertsKey(key, "outlineColor", outlineColor);
-        putClientProperty(FlatClientProperties.STYLE, "" +
-                "background:" + convertsKey(key, "background", "$Panel.background") + ";" +
-                "outlineColor:" + outline + ";" +
-                "effectColor:" + convertsKey(key, "effectColor", outline));
-    }
-
-    private String convertsKey(String key, String value, String defaultValue) {
-        return "if($Toast." + key + "." + value + ", $Toast." + key + "." + value + ", if($Toast." + value + ", $Toast." + value + ", " + defaultValue + "))";
+        putClientProperty(ToastClientProperties.TOAST_STYLE, ToastStyle.getStyle(getKey(), getDefaultColor()));
     }
 
     @Override
     public void updateUI() {
         setUI(new ToastPanelUI());
+        if (type != null) {
+            installPropertyStyle();
+        }
         removeDialogBackground();
     }
 
@@ -50,22 +48,68 @@ public class ToastNotificationPanel extends JPanel {
 
     private void installDefault() {
         labelIcon = new JLabel();
-        textPane = new JTextPane();
-        textPane.setText("Hello!\nToast Notification");
-        textPane.setOpaque(false);
-        textPane.setFocusable(false);
-        textPane.setCursor(Cursor.getDefaultCursor());
         putClientProperty(ToastClientProperties.TOAST_ICON, labelIcon);
-        putClientProperty(ToastClientProperties.TOAST_COMPONENT, textPane);
+        if (FlatUIUtils.getUIBoolean("Toast.plainTextRenderer", true)) {
+            messageLabel = new ToastMessageLabel("Hello!\nToast Notification");
+            putClientProperty(ToastClientProperties.TOAST_COMPONENT, messageLabel);
+        } else {
+            textPane = new JTextPane();
+            textPane.setText("Hello!\nToast Notification");
+            textPane.setOpaque(false);
+            textPane.setFocusable(false);
+            textPane.setCursor(Cursor.getDefaultCursor());
+            putClientProperty(ToastClientProperties.TOAST_COMPONENT, textPane);
+        }
     }
 
     public void set(Notification.Type type, String message) {
         this.type = type;
         labelIcon.setIcon(getDefaultIcon());
-        textPane.setText(message);
+        if (messageLabel != null) {
+            messageLabel.setText(message);
+        } else {
+            textPane.setText(message);
+        }
         installPropertyStyle();
     }
 
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        if (this.occurrences != occurrences) {
+            this.occurrences = occurrences;
+            repaint();
+        }
+    }
+
+    @Override
+    protected void paintChildren(Graphics g) {
+        super.paintChildren(g);
+        if (occurrences > 1 && labelIcon.getParent() == this) {
+            paintOccurrences(g);
+        }
+    }
+
+    private void paintOccurrences(Graphics g) {
+        String text = occurrences > 99 ? "99+" : String.valueOf(occurrences);
+        Graphics2D g2 = (Graphics2D) g.create();
+        FlatUIUtils.setRenderingHints(g2);
+        g2.setFont(getFont().deriveFont(Font.BOLD, getFont().getSize2D() * 0.75f));
+        FontMetrics fm = g2.getFontMetrics();
+        int height = fm.getHeight();
+        int width = Math.max(height, fm.stringWidth(text) + height / 2);
+        Rectangle icon = labelIcon.getBounds();
+        int x = icon.x + icon.width - width / 2;
+        int y = icon.y - height / 3;
+        g2.setColor(getDefaultColor());
+        g2.fillRoundRect(x, y, width, height, height, height);
+        g2.setColor(Color.WHITE);
+        g2.drawString(text, x + (width - fm.stringWidth(text)) / 2, y + fm.getAscent());
+        g2.dispose();
+    }
+
     public void setDialog(JWindow window) {
         this.window = window;
         removeDialogBackground();
@@ -83,19 +127,20 @@ public class ToastNotificationPanel extends JPanel {
         }
     }
 
-    private String toTextColor(Color color) {
-        return "rgb(" + color.getRed() + "," + color.getGreen() + "," + color.getBlue() + ")";
-    }
-
     public Icon getDefaultIcon() {
         String key = getKey();
         Icon icon = UIManager.getIcon("Toast." + key + ".icon");
         if (icon != null) {
             return icon;
         }
+        Color color = getDefaultColor();
+        return IconCache.getInstance().get(key, color, () -> createSVGIcon(key, color));
+    }
+
+    private Icon createSVGIcon(String key, Color color) {
         FlatSVGIcon svgIcon = new FlatSVGIcon(getClass().getResource("/notification/" + key + ".svg"));
         FlatSVGIcon.ColorFilter colorFilter = new FlatSVGIcon.ColorFilter();
-        colorFilter.add(new Color(150, 150, 150), getDefaultColor());
+        colorFilter.add(new Color(150, 150, 150), color);
         svgIcon.setColorFilter(colorFilter);
         return svgIcon;
     }
@@ -0,0 +1,170 @@
+package org.foxesworld.notification.ui;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ToastOverlay {
+
+    private final JWindow window;
+    private final JPanel contentPane;
+    private final List<OverlaySurface> surfaces = new ArrayList<>();
+    private boolean validatePending;
+
+    public ToastOverlay(Window owner) {
+        window = new JWindow(owner);
+        contentPane = new JPanel(null);
+        contentPane.setOpaque(false);
+        window.setBackground(new Color(0, 0, 0, 0));
+        window.setFocusableWindowState(false);
+        window.setContentPane(contentPane);
+    }
+
+    public ToastSurface createSurface() {
+        return new OverlaySurface();
+    }
+
+    public boolean isEmpty() {
+        return surfaces.isEmpty();
+    }
+
+    public void dispose() {
+        surfaces.clear();
+        contentPane.removeAll();
+        window.dispose();
+    }
+
+    public JWindow getWindow() {
+        return window;
+    }
+
+    private void invalidateBounds() {
+        if (!validatePending) {
+            validatePending = true;
+            SwingUtilities.invokeLater(this::validateBounds);
+        }
+    }
+
+    private void validateBounds() {
+        validatePending = false;
+        Rectangle union = null;
+        for (OverlaySurface surface : surfaces) {
+            if (surface.visible) {
+                Rectangle rec = new Rectangle(surface.x, surface.y, surface.layer.getWidth(), surface.layer.getHeight());
+                union = union == null ? rec : union.union(rec);
+            }
+        }
+        if (union == null || union.isEmpty()) {
+            if (window.isVisible()) {
+                window.setVisible(false);
+            }
+            return;
+        }
+        if (!union.equals(window.getBounds())) {
+            window.setBounds(union);
+        }
+        for (OverlaySurface surface : surfaces) {
+            ToastLayer layer = surface.layer;
+            int lx = surface.x - union.x;
+            int ly = surface.y - union.y;
+            if (layer.getX() != lx || layer.getY() != ly) {
+                layer.setLocation(lx, ly);
+            }
+        }
+        if (!window.isVisible()) {
+            window.setVisible(true);
+        }
+    }
+
+    private class OverlaySurface implements ToastSurface {
+
+        private final ToastLayer layer = new ToastLayer();
+        private int x;
+        private int y;
+        private boolean visible;
+
+        @Override
+        public Rectangle getParentBounds() {
+            return window.getOwner().getBounds();
+        }
+
+        @Override
+        public boolean isParentRelative() {
+            return false;
+        }
+
+        @Override
+        public void setContent(JComponent content) {
+            layer.setContent(content);
+        }
+
+        @Override
+        public void pack() {
+            Dimension size = layer.getPreferredSize();
+            setSize(size.width, size.height);
+        }
+
+        @Override
+        public void setSize(int width, int height) {
+            if (layer.getWidth() != width || layer.getHeight() != height) {
+                layer.setSize(width, height);
+                layer.validate();
+                invalidateBounds();
+            }
+        }
+
+        @Override
+        public int getWidth() {
+            return layer.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return layer.getHeight();
+        }
+
+        @Override
+        public void setLocation(int x, int y) {
+            if (this.x != x || this.y != y) {
+                this.x = x;
+                this.y = y;
+                invalidateBounds();
+            }
+        }
+
+        @Override
+        public void setOpacity(float opacity) {
+            layer.setAlpha(opacity);
+        }
+
+        @Override
+        public void setAnimating(boolean animating) {
+            layer.setSnapshot(animating && FlatUIUtils.getUIBoolean("Toast.animationSnapshot", false));
+        }
+
+        @Override
+        public void show() {
+            if (!visible) {
+                visible = true;
+                surfaces.add(this);
+                contentPane.add(layer);
+                invalidateBounds();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (visible) {
+                visible = false;
+                surfaces.remove(this);
+                contentPane.remove(layer);
+                contentPane.repaint(layer.getBounds());
+                invalidateBounds();
+            }
+            layer.setContent(null);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyChangeListener {
@@ -64,6 +65,11 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
 
     private PanelNotificationLayout layout;
     private Map<String, Object> oldStyleValues;
+    private PaintStyle paintStyle;
+    private Color defaultBackground;
+    private Color defaultOutlineColor;
+    private Color defaultEffectColor;
+    private boolean toastStyleApplied;
 
     @Override
     public void installUI(JComponent c) {
@@ -105,6 +111,10 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
         effectOpacity = FlatUIUtils.getUIFloat(prefix + ".effectOpacity", 0.2f);
         effectAlignment = UIUtils.getString(prefix + ".effectAlignment", "left");
         p.setBackground(FlatUIUtils.getUIColor(prefix + ".background", "Panel.background"));
+        defaultBackground = p.getBackground();
+        defaultOutlineColor = outlineColor;
+        defaultEffectColor = effectColor;
+        toastStyleApplied = false;
         p.setBorder(createDefaultBorder());
         LookAndFeel.installProperty(p, "opaque", false);
     }
@@ -119,7 +129,12 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
         Color color = FlatUIUtils.getUIColor("Toast.shadowColor", new Color(0, 0, 0));
         Insets insets = UIUtils.getInsets("Toast.shadowInsets", new Insets(0, 0, 6, 6));
         float shadowOpacity = FlatUIUtils.getUIFloat("Toast.shadowOpacity", 0.1f);
-        return new DropShadowBorder(color, insets, shadowOpacity);
+        DropShadowBorder border = new DropShadowBorder(color, insets, shadowOpacity);
+        border.setNineSlice(FlatUIUtils.getUIBoolean("Toast.shadowNineSlice", true));
+        border.setParallelThreshold(FlatUIUtils.getUIInt("Toast.shadowParallelThreshold", 262144));
+        border.setRowMajor(FlatUIUtils.getUIBoolean("Toast.shadowRowMajor", true));
+        border.setAnalytic("analytic".equals(UIUtils.getString("Toast.shadowGenerator", "blur")));
+        return border;
     }
 
     protected String getPropertyPrefix() {
@@ -153,6 +168,7 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
                 c.repaint();
                 break;
             }
+            case ToastClientProperties.TOAST_STYLE:
             case STYLE:
             case STYLE_CLASS: {
                 JPanel c = (JPanel) e.getSource();
@@ -246,17 +262,50 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
         } catch (RuntimeException ex) {
             LoggingFacade.INSTANCE.logSevere(null, ex);
         }
+        publishPaintStyle();
+    }
+
+    protected void publishPaintStyle() {
+        int version = paintStyle != null ? paintStyle.version + 1 : 0;
+        paintStyle = new PaintStyle(version, arc, outlineWidth, outlineColor, useEffect, effectColor, effectWidth, effectOpacity, "right".equals(effectAlignment));
+    }
+
+    public PaintStyle getPaintStyle() {
+        return paintStyle;
     }
 
     protected void applyStyle(JPanel c, Object style) {
         boolean oldShowCloseButton = showCloseButton;
-        oldStyleValues = FlatStylingSupport.parseAndApply(oldStyleValues, style, (key, value) -> applyStyleProperty(c, key, value));
+        BiFunction<String, Object, Object> applyProperty = (key, value) -> applyStyleProperty(c, key, value);
+        // restore the previous style first, so the toast style sits between the defaults and the client style
+        oldStyleValues = FlatStylingSupport.parseAndApply(oldStyleValues, null, applyProperty);
+        applyToastStyle(c);
+        oldStyleValues = FlatStylingSupport.parseAndApply(null, style, applyProperty);
+        if (layout != null) {
+            layout.invalidate();
+        }
         if (oldShowCloseButton != showCloseButton) {
             uninstallCloseButton(c);
             installCloseButton(c);
         }
     }
 
+    protected void applyToastStyle(JPanel c) {
+        ToastStyle style = clientProperty(c, ToastClientProperties.TOAST_STYLE, null, ToastStyle.class);
+        if (style != null) {
+            c.setBackground(style.getBackground());
+            outlineColor = style.getOutlineColor();
+            effectColor = style.getEffectColor();
+            toastStyleApplied = true;
+        } else if (toastStyleApplied) {
+            // the toast style was removed, its colors go back to the ui defaults
+            c.setBackground(defaultBackground);
+            outlineColor = defaultOutlineColor;
+            effectColor = defaultEffectColor;
+            toastStyleApplied = false;
+        }
+    }
+
     protected Object applyStyleProperty(JPanel c, String key, Object value) {
         return FlatStylingSupport.applyToAnnotatedObjectOrComponent(this, c, key, value);
     }
@@ -271,45 +320,125 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
         return FlatStylingSupport.getAnnotatedStyleableValue(this, key);
     }
 
-    protected class PanelNotificationLayout implements LayoutManager {
+    public static class PaintStyle {
+
+        private final int version;
+        private final int arc;
+        private final int outlineWidth;
+        private final Color outlineColor;
+        private final boolean useEffect;
+        private final Color effectColor;
+        private final float effectWidth;
+        private final float effectOpacity;
+        private final boolean effectRight;
+
+        public PaintStyle(int version, int arc, int outlineWidth, Color outlineColor, boolean useEffect, Color effectColor, float effectWidth, float effectOpacity, boolean effectRight) {
+            this.version = version;
+            this.arc = arc;
+            this.outlineWidth = outlineWidth;
+            this.outlineColor = outlineColor;
+            this.useEffect = useEffect;
+            this.effectColor = effectColor;
+            this.effectWidth = effectWidth;
+            this.effectOpacity = effectOpacity;
+            this.effectRight = effectRight;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public int getArc() {
+            return arc;
+        }
+
+        public int getOutlineWidth() {
+            return outlineWidth;
+        }
+
+        public Color getOutlineColor() {
+            return outlineColor;
+        }
+
+        public boolean isUseEffect() {
+            return useEffect;
+        }
+
+        public Color getEffectColor() {
+            return effectColor;
+        }
+
+        public float getEffectWidth() {
+            return effectWidth;
+        }
+
+        public float getEffectOpacity() {
+            return effectOpacity;
+        }
+
+        public boolean isEffectRight() {
+            return effectRight;
+        }
+    }
+
+    protected class PanelNotificationLayout implements LayoutManager2 {
+
+        private boolean valid;
+        private float scale;
+        private Insets parentInsets;
+        private Insets insets;
+        private Component measuredIcon;
+        private Component measuredComponent;
+        private Component measuredClose;
+        private Dimension iconSize;
+        private Dimension componentSize;
+        private Dimension closeSize;
+        private int gap;
+        private int closeGap;
+        private Dimension preferredSize;
+        private int layoutWidth = -1;
+        private int layoutHeight = -1;
 
         @Override
         public void addLayoutComponent(String name, Component comp) {
 
         }
 
+        @Override
+        public void addLayoutComponent(Component comp, Object constraints) {
+
+        }
+
         @Override
         public void removeLayoutComponent(Component comp) {
 
         }
 
+        @Override
+        public Dimension maximumLayoutSize(Container target) {
+            return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public float getLayoutAlignmentX(Container target) {
+            return 0.5f;
+        }
+
+        @Override
+        public float getLayoutAlignmentY(Container target) {
+            return 0.5f;
+        }
+
+        @Override
+        public void invalidateLayout(Container target) {
+            valid = false;
+        }
+
         @Override
         public Dimension preferredLayoutSize(Container parent) {
             synchronized (parent.getTreeLock()) {
-                Insets insets = FlatUIUtils.addInsets(parent.getInsets(), UIScale.scale(margin));
-                int width = insets.left + insets.right;
-                int height = 0;
-                int gap = 0;
-                int closeGap = 0;
-                if (iconComponent != null) {
-                    width += iconComponent.getPreferredSize().width;
-                    height = Math.max(height, iconComponent.getPreferredSize().height);
-                    gap = UIScale.scale(iconTextGap);
-                }
-                if (component != null) {
-                    width += gap;
-                    width += component.getPreferredSize().width;
-                    height = Math.max(height, component.getPreferredSize().height);
-                    closeGap = UIScale.scale(closeButtonGap);
-                }
-                if (closeButton != null) {
-                    width += closeGap;
-                    width += closeButton.getPreferredSize().width;
-                    height = Math.max(height, closeButton.getPreferredSize().height);
-                }
-                height += (insets.top + insets.bottom);
-                width = Math.max(minimumWidth, maximumWidth == -1 ? width : Math.min(maximumWidth, width));
-                return new Dimension(width, height);
+                measure(parent);
+                return new Dimension(preferredSize);
             }
         }
 
@@ -320,13 +449,70 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
             }
         }
 
+        private void measure(Container parent) {
+            float userScale = UIScale.getUserScaleFactor();
+            Insets parentInsets = parent.getInsets();
+            if (valid && scale == userScale && insets != null && parentInsets.equals(this.parentInsets) && isMeasured()) {
+                return;
+            }
+            this.parentInsets = parentInsets;
+            scale = userScale;
+            measuredIcon = iconComponent;
+            measuredComponent = component;
+            measuredClose = closeButton;
+            insets = FlatUIUtils.addInsets(parentInsets, UIScale.scale(margin));
+            iconSize = iconComponent != null ? iconComponent.getPreferredSize() : null;
+            closeSize = closeButton != null ? closeButton.getPreferredSize() : null;
+            gap = iconComponent != null ? UIScale.scale(iconTextGap) : 0;
+            closeGap = component != null ? UIScale.scale(closeButtonGap) : 0;
+            updateWrapWidth();
+            componentSize = component != null ? component.getPreferredSize() : null;
+            int width = insets.left + insets.right;
+            int height = 0;
+            if (iconSize != null) {
+                width += iconSize.width;
+                height = Math.max(height, iconSize.height);
+            }
+            if (componentSize != null) {
+                width += gap + componentSize.width;
+                height = Math.max(height, componentSize.height);
+            }
+            if (closeSize != null) {
+                width += closeGap + closeSize.width;
+                height = Math.max(height, closeSize.height);
+            }
+            height += (insets.top + insets.bottom);
+            width = Math.max(minimumWidth, maximumWidth == -1 ? width : Math.min(maximumWidth, width));
+            preferredSize = new Dimension(width, height);
+            layoutWidth = -1;
+            layoutHeight = -1;
+            valid = true;
+        }
+
+        private boolean isMeasured() {
+            // a child that changed its content is invalid until the panel validates it again, and invalidateLayout is not
+            // called for it when the panel itself is already invalid, so the children are checked directly
+            return measuredIcon == iconComponent && measuredComponent == component && measuredClose == closeButton
+                    && isValid(iconComponent) && isValid(component) && isValid(closeButton);
+        }
+
+        private boolean isValid(Component c) {
+            return c == null || c.isValid();
+        }
+
+        private void updateWrapWidth() {
+            if (component instanceof ToastMessageLabel) {
+                ((ToastMessageLabel) component).layoutWrapWidth(maximumWidth == -1 ? -1 : getMaxWidth(insets.left + insets.right));
+            }
+        }
+
         private int getMaxWidth(int insets) {
             int width = Math.max(maximumWidth, minimumWidth) - insets;
-            if (iconComponent != null) {
-                width -= (iconComponent.getPreferredSize().width + UIScale.scale(iconTextGap));
+            if (iconSize != null) {
+                width -= (iconSize.width + UIScale.scale(iconTextGap));
             }
-            if (closeButton != null) {
-                width -= (UIScale.scale(closeButtonGap) + closeButton.getPreferredSize().width);
+            if (closeSize != null) {
+                width -= (UIScale.scale(closeButtonGap) + closeSize.width);
             }
             return width;
         }
@@ -334,32 +520,39 @@ public class ToastPanelUI extends BasicPanelUI implements StyleableUI, PropertyC
         @Override
         public void layoutContainer(Container parent) {
             synchronized (parent.getTreeLock()) {
-                Insets insets = FlatUIUtils.addInsets(parent.getInsets(), UIScale.scale(margin));
+                measure(parent);
+                if (parent.getWidth() == layoutWidth && parent.getHeight() == layoutHeight) {
+                    return;
+                }
+                layoutWidth = parent.getWidth();
+                layoutHeight = parent.getHeight();
                 int x = insets.left;
                 int y = insets.top;
                 int height = 0;
-                if (iconComponent != null) {
-                    int iconW = iconComponent.getPreferredSize().width;
-                    int iconH = iconComponent.getPreferredSize().height;
-                    iconComponent.setBounds(x, y, iconW, iconH);
-                    x += iconW;
-                    height = iconH;
+                if (iconSize != null) {
+                    iconComponent.setBounds(x, y, iconSize.width, iconSize.height);
+                    x += iconSize.width;
+                    height = iconSize.height;
                 }
-                if (component != null) {
-                    int cW = maximumWidth == -1 ? component.getPreferredSize().width : Math.min(component.getPreferredSize().width, getMaxWidth(insets.left + insets.right));
-                    int cH = component.getPreferredSize().height;
+                if (componentSize != null) {
+                    int cW = maximumWidth == -1 ? componentSize.width : Math.min(componentSize.width, getMaxWidth(insets.left + insets.right));
+                    int cH = componentSize.height;
                     x += UIScale.scale(iconTextGap);
                     component.setBounds(x, y, cW, cH);
                     height = Math.max(height, cH);
                 }
-                if (closeButton != null) {
-                    int cW = closeButton.getPreferredSize().width;
-                    int cH = closeButton.getPreferredSize().height;
+                if (closeSize != null) {
+                    int cW = closeSize.width;
+                    int cH = closeSize.height;
                     int cX = parent.getWidth() - insets.right - cW;
                     int cy = y + ((height - cH) / 2);
                     closeButton.setBounds(cX, cy, cW, cH);
                 }
             }
         }
+
+        private void invalidate() {
+            valid = false;
+        }
     }
 }
@@ -0,0 +1,58 @@
+package org.foxesworld.notification.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ToastStyle {
+
+    private static final Map<String, ToastStyle> styles = new HashMap<>();
+    private static boolean listenerInstalled;
+
+    private final Color background;
+    private final Color outlineColor;
+    private final Color effectColor;
+
+    public static synchronized ToastStyle getStyle(String key, Color defaultColor) {
+        if (!listenerInstalled) {
+            listenerInstalled = true;
+            UIManager.addPropertyChangeListener(e -> {
+                if ("lookAndFeel".equals(e.getPropertyName())) {
+                    clear();
+                }
+            });
+        }
+        return styles.computeIfAbsent(key + ":" + defaultColor.getRGB(), k -> new ToastStyle(key, defaultColor));
+    }
+
+    public static synchronized void clear() {
+        styles.clear();
+    }
+
+    private ToastStyle(String key, Color defaultColor) {
+        outlineColor = getColor(key, "outlineColor", defaultColor);
+        background = getColor(key, "background", UIManager.getColor("Panel.background"));
+        effectColor = getColor(key, "effectColor", outlineColor);
+    }
+
+    private static Color getColor(String key, String value, Color defaultColor) {
+        Color color = UIManager.getColor("Toast." + key + "." + value);
+        if (color == null) {
+            color = UIManager.getColor("Toast." + value);
+        }
+        return color != null ? color : defaultColor;
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public Color getOutlineColor() {
+        return outlineColor;
+    }
+
+    public Color getEffectColor() {
+        return effectColor;
+    }
+}
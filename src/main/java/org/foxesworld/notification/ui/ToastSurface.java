@@ -0,0 +1,31 @@
+package org.foxesworld.notification.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+public interface ToastSurface {
+
+    Rectangle getParentBounds();
+
+    boolean isParentRelative();
+
+    void setContent(JComponent content);
+
+    void pack();
+
+    void setSize(int width, int height);
+
+    int getWidth();
+
+    int getHeight();
+
+    void setLocation(int x, int y);
+
+    void setOpacity(float opacity);
+
+    void setAnimating(boolean animating);
+
+    void show();
+
+    void dispose();
+}
@@ -0,0 +1,82 @@
+package org.foxesworld.notification.ui;
+
+import org.foxesworld.notification.util.WindowPool;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class WindowSurface implements ToastSurface {
+
+    private final JWindow window;
+
+    public WindowSurface(Window owner) {
+        window = WindowPool.getInstance().acquire(owner);
+    }
+
+    @Override
+    public Rectangle getParentBounds() {
+        return window.getOwner().getBounds();
+    }
+
+    @Override
+    public boolean isParentRelative() {
+        return false;
+    }
+
+    @Override
+    public void setContent(JComponent content) {
+        window.setContentPane(content);
+        if (content instanceof ToastNotificationPanel) {
+            ((ToastNotificationPanel) content).setDialog(window);
+        }
+    }
+
+    @Override
+    public void pack() {
+        window.pack();
+    }
+
+    @Override
+    public void setSize(int width, int height) {
+        window.setSize(width, height);
+    }
+
+    @Override
+    public int getWidth() {
+        return window.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return window.getHeight();
+    }
+
+    @Override
+    public void setLocation(int x, int y) {
+        window.setLocation(x, y);
+    }
+
+    @Override
+    public void setOpacity(float opacity) {
+        window.setOpacity(opacity);
+    }
+
+    @Override
+    public void setAnimating(boolean animating) {
+        // window opacity and location are applied by the window system, the content is not repainted while it animates
+    }
+
+    @Override
+    public void show() {
+        window.setVisible(true);
+    }
+
+    @Override
+    public void dispose() {
+        WindowPool.getInstance().release(window);
+    }
+
+    public JWindow getWindow() {
+        return window;
+    }
+}
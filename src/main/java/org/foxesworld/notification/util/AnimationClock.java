@@ -0,0 +1,191 @@
+package org.foxesworld.notification.util;
+
+import com.formdev.flatlaf.util.Animator;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class AnimationClock {
+
+    private static AnimationClock instance;
+
+    private final List<Animation> animations = new ArrayList<>();
+    private final Queue<Runnable> frameTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> frameEndTasks = new ConcurrentLinkedQueue<>();
+    private final Timer timer;
+    private Animation[] frame = new Animation[0];
+
+    public static synchronized AnimationClock getInstance() {
+        if (instance == null) {
+            instance = new AnimationClock();
+        }
+        return instance;
+    }
+
+    private AnimationClock() {
+        timer = new Timer(5, e -> tick());
+        timer.setInitialDelay(0);
+        timer.setCoalesce(true);
+    }
+
+    public Animation createAnimation(int duration, Animator.TimingTarget target) {
+        return new Animation(duration, target);
+    }
+
+    public void setResolution(int resolution) {
+        if (resolution > 0 && timer.getDelay() != resolution) {
+            timer.setDelay(resolution);
+        }
+    }
+
+    public int getResolution() {
+        return timer.getDelay();
+    }
+
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    public void invokeBeforeFrame(Runnable task) {
+        frameTasks.offer(task);
+        startTimer();
+    }
+
+    public void invokeAfterFrame(Runnable task) {
+        frameEndTasks.offer(task);
+        startTimer();
+    }
+
+    public int getActiveCount() {
+        synchronized (animations) {
+            return animations.size();
+        }
+    }
+
+    private void tick() {
+        long now = currentTime();
+        runTasks(frameTasks);
+        int count;
+        synchronized (animations) {
+            count = animations.size();
+            frame = animations.toArray(frame);
+        }
+        for (int i = 0; i < count; i++) {
+            frame[i].tick(now);
+            frame[i] = null;
+        }
+        runTasks(frameEndTasks);
+        synchronized (animations) {
+            if (animations.isEmpty() && frameTasks.isEmpty() && frameEndTasks.isEmpty()) {
+                timer.stop();
+            }
+        }
+    }
+
+    private void runTasks(Queue<Runnable> tasks) {
+        // tasks posted while running belong to the next frame
+        for (int i = tasks.size(); i > 0; i--) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                break;
+            }
+            task.run();
+        }
+    }
+
+    private void startTimer() {
+        synchronized (animations) {
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        }
+    }
+
+    private void add(Animation animation) {
+        synchronized (animations) {
+            animations.add(animation);
+            if (!timer.isRunning()) {
+                timer.start();
+            }
+        }
+    }
+
+    private void remove(Animation animation) {
+        synchronized (animations) {
+            animations.remove(animation);
+        }
+    }
+
+    private static long currentTime() {
+        return System.nanoTime() / 1000000;
+    }
+
+    public class Animation {
+
+        private final int duration;
+        private final Animator.TimingTarget target;
+        private volatile boolean running;
+        private boolean hasBegun;
+        private long startTime;
+
+        private Animation(int duration, Animator.TimingTarget target) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException();
+            }
+            this.duration = duration;
+            this.target = target;
+        }
+
+        public void start() {
+            if (running) {
+                throw new IllegalStateException("Animation is running");
+            }
+            running = true;
+            hasBegun = false;
+            startTime = currentTime();
+            add(this);
+        }
+
+        public void stop() {
+            stop(false);
+        }
+
+        public void cancel() {
+            stop(true);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        private void stop(boolean cancel) {
+            if (!running) {
+                return;
+            }
+            remove(this);
+            running = false;
+            if (!cancel) {
+                target.end();
+            }
+        }
+
+        private void tick(long now) {
+            if (!running) {
+                return;
+            }
+            if (!hasBegun) {
+                target.begin();
+                hasBegun = true;
+            }
+            long elapsed = now - startTime;
+            float fraction = Math.min(Math.max(elapsed / (float) duration, 0f), 1f);
+            target.timingEvent(fraction);
+            if (elapsed >= duration) {
+                stop(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.foxesworld.notification.util;
+
+import com.formdev.flatlaf.util.UIScale;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+public class IconCache {
+
+    private static IconCache instance;
+
+    private final Map<Key, Icon> cache = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    public static synchronized IconCache getInstance() {
+        if (instance == null) {
+            instance = new IconCache();
+        }
+        return instance;
+    }
+
+    private IconCache() {
+        UIManager.addPropertyChangeListener(e -> {
+            if ("lookAndFeel".equals(e.getPropertyName())) {
+                clear();
+            }
+        });
+        UIScale.addPropertyChangeListener(e -> {
+            if ("userScaleFactor".equals(e.getPropertyName())) {
+                clear();
+            }
+        });
+    }
+
+    public synchronized Icon get(String name, Color color, Supplier<Icon> supplier) {
+        Key key = new Key(name, color);
+        Icon icon = cache.get(key);
+        if (icon != null) {
+            hitCount++;
+            return icon;
+        }
+        missCount++;
+        icon = new RasterIcon(supplier.get());
+        cache.put(key, icon);
+        return icon;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int getSize() {
+        return cache.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static class Key {
+
+        private final String name;
+        private final int color;
+        private final float scale;
+        private final String lookAndFeel;
+
+        private Key(String name, Color color) {
+            LookAndFeel laf = UIManager.getLookAndFeel();
+            this.name = name;
+            this.color = color.getRGB();
+            this.scale = UIScale.getUserScaleFactor();
+            this.lookAndFeel = laf != null ? laf.getClass().getName() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return color == key.color && Float.compare(scale, key.scale) == 0 && name.equals(key.name) && Objects.equals(lookAndFeel, key.lookAndFeel);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, color, scale, lookAndFeel);
+        }
+    }
+
+    private static class RasterIcon implements Icon {
+
+        private final Icon icon;
+        private final int width;
+        private final int height;
+        private BufferedImage image;
+        private double imageScale;
+
+        private RasterIcon(Icon icon) {
+            this.icon = icon;
+            this.width = icon.getIconWidth();
+            this.height = icon.getIconHeight();
+        }
+
+        @Override
+        public synchronized void paintIcon(Component c, Graphics g, int x, int y) {
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            double scale = UIScale.getSystemScaleFactor(g2);
+            if (image == null || imageScale != scale) {
+                image = rasterize(c, scale);
+                imageScale = scale;
+            }
+            g2.translate(x, y);
+            g2.scale(1 / scale, 1 / scale);
+            g2.drawImage(image, 0, 0, null);
+            g2.dispose();
+        }
+
+        private BufferedImage rasterize(Component c, double scale) {
+            BufferedImage image = new BufferedImage((int) Math.ceil(width * scale), (int) Math.ceil(height * scale), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            g2.scale(scale, scale);
+            icon.paintIcon(c, g2, 0, 0);
+            g2.dispose();
+            return image;
+        }
+
+        @Override
+        public int getIconWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return height;
+        }
+    }
+}
@@ -1,57 +1,279 @@
 package org.foxesworld.notification.util;
 
+import com.formdev.flatlaf.ui.FlatUIUtils;
 import org.foxesworld.notification.Notification;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
 
 @SuppressWarnings("unused")
 public class NotificationHolder {
-    private final List<Notification.NotificationAnimation> lists = new ArrayList<>();
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry e) -> -e.priority).thenComparingLong(e -> e.sequence);
+
+    private final Map<Notification.Location, HoldQueue> holds = new EnumMap<>(Notification.Location.class);
+    private final HoldQueue unlocated = new HoldQueue();
     private final Object lock = new Object();
+    private final Consumer<Notification.NotificationAnimation> expireCallback;
+    private int holdCount;
+    private long sequence;
+    private long expiredCount;
+
+    public NotificationHolder() {
+        this(null);
+    }
+
+    public NotificationHolder(Consumer<Notification.NotificationAnimation> expireCallback) {
+        this.expireCallback = expireCallback;
+    }
 
     public int getHoldCount() {
-        return lists.size();
+        List<Notification.NotificationAnimation> expired;
+        int count;
+        synchronized (lock) {
+            expired = discardExpired(unlocated, null);
+            for (HoldQueue queue : holds.values()) {
+                expired = discardExpired(queue, expired);
+            }
+            count = holdCount;
+        }
+        fireExpired(expired);
+        return count;
+    }
+
+    public int getHoldCount(Notification.Location location) {
+        List<Notification.NotificationAnimation> expired;
+        int count;
+        synchronized (lock) {
+            HoldQueue queue = getQueue(location, false);
+            expired = discardExpired(queue, null);
+            count = queue == null ? 0 : queue.size;
+        }
+        fireExpired(expired);
+        return count;
+    }
+
+    public void expire(Notification.Location location) {
+        List<Notification.NotificationAnimation> expired;
+        synchronized (lock) {
+            expired = discardExpired(getQueue(location, false), null);
+        }
+        fireExpired(expired);
+    }
+
+    public long getExpiredCount() {
+        synchronized (lock) {
+            return expiredCount;
+        }
     }
 
     public Notification.NotificationAnimation getHold(Notification.Location location) {
+        List<Notification.NotificationAnimation> expired;
+        Entry entry;
         synchronized (lock) {
-            for (Notification.NotificationAnimation n : lists) {
-                if (n.getLocation() == location) {
-                    return n;
-                }
+            HoldQueue queue = getQueue(location, false);
+            expired = discardExpired(queue, null);
+            entry = queue == null ? null : queue.peek();
+        }
+        fireExpired(expired);
+        return entry == null ? null : entry.notification;
+    }
+
+    public Notification.NotificationAnimation pollHold(Notification.Location location) {
+        List<Notification.NotificationAnimation> expired;
+        Entry entry;
+        synchronized (lock) {
+            HoldQueue queue = getQueue(location, false);
+            expired = discardExpired(queue, null);
+            entry = queue == null ? null : queue.peek();
+            if (entry != null) {
+                remove(queue, entry);
             }
-            return null;
+        }
+        fireExpired(expired);
+        return entry == null ? null : entry.notification;
+    }
+
+    public Notification.NotificationAnimation pollOldest(Notification.Location location) {
+        synchronized (lock) {
+            HoldQueue queue = getQueue(location, false);
+            Entry entry = queue == null ? null : queue.peekOldest();
+            if (entry == null) {
+                return null;
+            }
+            remove(queue, entry);
+            return entry.notification;
         }
     }
 
     public void removeHold(Notification.NotificationAnimation notificationAnimation) {
         synchronized (lock) {
-            lists.remove(notificationAnimation);
+            HoldQueue queue = getQueue(notificationAnimation.getLocation(), false);
+            if (queue == null) {
+                return;
+            }
+            for (Entry entry : queue.arrival) {
+                if (entry.notification == notificationAnimation && !entry.removed) {
+                    remove(queue, entry);
+                    return;
+                }
+            }
         }
     }
 
     public void hold(Notification.NotificationAnimation notificationAnimation) {
         synchronized (lock) {
-            lists.add(notificationAnimation);
+            getQueue(notificationAnimation.getLocation(), true).add(new Entry(notificationAnimation, sequence++, System.currentTimeMillis()));
+            holdCount++;
         }
     }
 
-    public void clearHold() {
+    public List<Notification.NotificationAnimation> clearHold() {
         synchronized (lock) {
-            lists.clear();
+            List<Notification.NotificationAnimation> removed = new ArrayList<>(holdCount);
+            unlocated.drainTo(removed);
+            for (HoldQueue queue : holds.values()) {
+                queue.drainTo(removed);
+            }
+            holds.clear();
+            holdCount = 0;
+            return removed;
         }
     }
 
-    public void clearHold(Notification.Location location) {
+    public List<Notification.NotificationAnimation> clearHold(Notification.Location location) {
         synchronized (lock) {
-            for (int i = 0; i < lists.size(); i++) {
-                Notification.NotificationAnimation n = lists.get(i);
-                if (n.getLocation() == location) {
-                    lists.remove(n);
-                    i--;
+            List<Notification.NotificationAnimation> removed = new ArrayList<>();
+            HoldQueue queue = location == null ? unlocated : holds.remove(location);
+            if (queue != null) {
+                holdCount -= queue.size;
+                queue.drainTo(removed);
+            }
+            return removed;
+        }
+    }
+
+    private void remove(HoldQueue queue, Entry entry) {
+        queue.remove(entry);
+        holdCount--;
+    }
+
+    private List<Notification.NotificationAnimation> discardExpired(HoldQueue queue, List<Notification.NotificationAnimation> expired) {
+        long deadline = getDeadline();
+        if (queue == null || deadline == Long.MIN_VALUE) {
+            return expired;
+        }
+        // entries arrive in time order, so the expired ones are always at the front of the arrival queue whatever their priority
+        Entry entry;
+        while ((entry = queue.peekOldest()) != null && entry.time < deadline) {
+            remove(queue, entry);
+            expiredCount++;
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(entry.notification);
+        }
+        return expired;
+    }
+
+    private void fireExpired(List<Notification.NotificationAnimation> expired) {
+        // called outside of the lock, the callback may call back into the caller
+        if (expired != null && expireCallback != null) {
+            for (Notification.NotificationAnimation notificationAnimation : expired) {
+                expireCallback.accept(notificationAnimation);
+            }
+        }
+    }
+
+    private long getDeadline() {
+        int timeToLive = FlatUIUtils.getUIInt("Toast.holdTimeToLive", -1);
+        return timeToLive < 0 ? Long.MIN_VALUE : System.currentTimeMillis() - timeToLive;
+    }
+
+    private HoldQueue getQueue(Notification.Location location, boolean create) {
+        if (location == null) {
+            return unlocated;
+        }
+        HoldQueue queue = holds.get(location);
+        if (queue == null && create) {
+            queue = new HoldQueue();
+            holds.put(location, queue);
+        }
+        return queue;
+    }
+
+    private static class HoldQueue {
+
+        private final PriorityQueue<Entry> priority = new PriorityQueue<>(ORDER);
+        private final ArrayDeque<Entry> arrival = new ArrayDeque<>();
+        private int size;
+
+        private void add(Entry entry) {
+            priority.add(entry);
+            arrival.addLast(entry);
+            size++;
+        }
+
+        private Entry peek() {
+            // entries removed through the arrival queue are only marked, they are skipped here
+            while (!priority.isEmpty() && priority.peek().removed) {
+                priority.poll();
+            }
+            return priority.peek();
+        }
+
+        private Entry peekOldest() {
+            while (!arrival.isEmpty() && arrival.peekFirst().removed) {
+                arrival.pollFirst();
+            }
+            return arrival.peekFirst();
+        }
+
+        private void remove(Entry entry) {
+            entry.removed = true;
+            size--;
+            if (size == 0) {
+                clear();
+            } else if (priority.size() > size * 2 + 16) {
+                priority.removeIf(e -> e.removed);
+                arrival.removeIf(e -> e.removed);
+            }
+        }
+
+        private void drainTo(List<Notification.NotificationAnimation> list) {
+            for (Entry entry : arrival) {
+                if (!entry.removed) {
+                    list.add(entry.notification);
                 }
             }
+            clear();
+        }
+
+        private void clear() {
+            priority.clear();
+            arrival.clear();
+            size = 0;
+        }
+    }
+
+    private static class Entry {
+
+        private final Notification.NotificationAnimation notification;
+        private final int priority;
+        private final long sequence;
+        private final long time;
+        private boolean removed;
+
+        private Entry(Notification.NotificationAnimation notification, long sequence, long time) {
+            this.notification = notification;
+            this.priority = notification.getPriority();
+            this.sequence = sequence;
+            this.time = time;
         }
     }
 }
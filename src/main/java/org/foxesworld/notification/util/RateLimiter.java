@@ -0,0 +1,84 @@
+package org.foxesworld.notification.util;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+import org.foxesworld.notification.Notification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RateLimiter {
+
+    private final Map<Notification.Location, Bucket> buckets = new HashMap<>();
+
+    public boolean isEnabled() {
+        return getRate() > 0;
+    }
+
+    public synchronized boolean tryAcquire(Notification.Location location) {
+        float rate = getRate();
+        if (rate <= 0) {
+            return true;
+        }
+        Bucket bucket = getBucket(location, rate);
+        if (bucket.tokens >= 1) {
+            bucket.tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void release(Notification.Location location) {
+        float rate = getRate();
+        if (rate <= 0) {
+            return;
+        }
+        Bucket bucket = getBucket(location, rate);
+        bucket.tokens = Math.min(getBurst(), bucket.tokens + 1);
+    }
+
+    public synchronized long getDelay(Notification.Location location) {
+        float rate = getRate();
+        if (rate <= 0) {
+            return 0;
+        }
+        Bucket bucket = getBucket(location, rate);
+        return bucket.tokens >= 1 ? 0 : (long) Math.ceil((1 - bucket.tokens) * 1000 / rate);
+    }
+
+    public synchronized void reset() {
+        buckets.clear();
+    }
+
+    private Bucket getBucket(Notification.Location location, float rate) {
+        int burst = getBurst();
+        long time = System.nanoTime();
+        Bucket bucket = buckets.get(location);
+        if (bucket == null) {
+            bucket = new Bucket(burst, time);
+            buckets.put(location, bucket);
+        } else {
+            bucket.tokens = Math.min(burst, bucket.tokens + (time - bucket.time) * rate / 1e9);
+            bucket.time = time;
+        }
+        return bucket;
+    }
+
+    private int getBurst() {
+        return Math.max(FlatUIUtils.getUIInt("Toast.rateBurst", 5), 1);
+    }
+
+    private float getRate() {
+        return FlatUIUtils.getUIFloat("Toast.rateLimit", -1f);
+    }
+
+    private static class Bucket {
+
+        private double tokens;
+        private long time;
+
+        private Bucket(double tokens, long time) {
+            this.tokens = tokens;
+            this.time = time;
+        }
+    }
+}
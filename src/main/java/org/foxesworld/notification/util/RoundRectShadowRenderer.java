@@ -0,0 +1,116 @@
+package org.foxesworld.notification.util;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class RoundRectShadowRenderer {
+
+    private final int size;
+    private final float opacity;
+    private final Color color;
+
+    public RoundRectShadowRenderer(int size, float opacity, Color color) {
+        this.size = size;
+        this.opacity = opacity;
+        this.color = color;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public float getOpacity() {
+        return opacity;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public BufferedImage createShadow(int width, int height, float arc) {
+        return createShadow(width, height, arc, null);
+    }
+
+    public BufferedImage createShadow(int width, int height, float arc, BufferedImage dst) {
+        width = Math.max(width, 0);
+        height = Math.max(height, 0);
+        int shadowSize = size * 2;
+        int dstWidth = width + shadowSize;
+        int dstHeight = height + shadowSize;
+        if (dst == null || dst.getWidth() != dstWidth || dst.getHeight() != dstHeight || dst.getType() != BufferedImage.TYPE_INT_ARGB) {
+            dst = new BufferedImage(Math.max(dstWidth, 1), Math.max(dstHeight, 1), BufferedImage.TYPE_INT_ARGB);
+        }
+        if (shadowSize == 0 || width == 0 || height == 0) {
+            return dst;
+        }
+        float radius = Math.max(0f, Math.min(arc, Math.min(width, height) / 2f));
+        float[] spanLeft = new float[height];
+        float[] spanRight = new float[height];
+        for (int y = 0; y < height; y++) {
+            float inset = 0;
+            float dy = Math.max(radius - (y + 0.5f), radius - (height - y - 0.5f));
+            if (dy > 0) {
+                inset = radius - (float) Math.sqrt(radius * radius - dy * dy);
+            }
+            spanLeft[y] = inset;
+            spanRight[y] = width - inset;
+        }
+
+        // the horizontal box filter of a span is the length of its overlap with the window, the vertical one is a running sum of rows
+        float[] columnSum = new float[dstWidth];
+        int[] pixels = new int[dstWidth * dstHeight];
+        int shadowRgb = color.getRGB() & 0x00FFFFFF;
+        float alphaScale = opacity * 255f / (shadowSize * shadowSize);
+        for (int y = 0, offset = 0; y < dstHeight; y++) {
+            int add = y - 1;
+            int remove = y - 1 - shadowSize;
+            boolean hasAdd = add >= 0 && add < height;
+            boolean hasRemove = remove >= 0 && remove < height;
+            if (y > 0 && hasAdd == hasRemove && (!hasAdd || spanLeft[add] == spanLeft[remove])) {
+                // the entering and leaving rows cancel out, so this row repeats the previous one
+                System.arraycopy(pixels, offset - dstWidth, pixels, offset, dstWidth);
+                offset += dstWidth;
+                continue;
+            }
+            if (hasAdd) {
+                addRow(columnSum, spanLeft[add], spanRight[add], shadowSize, 1);
+            }
+            if (hasRemove) {
+                addRow(columnSum, spanLeft[remove], spanRight[remove], shadowSize, -1);
+            }
+            for (int x = 0; x < dstWidth; x++) {
+                int a = (int) (columnSum[x] * alphaScale);
+                pixels[offset++] = Math.min(Math.max(a, 0), 255) << 24 | shadowRgb;
+            }
+        }
+        dst.getRaster().setDataElements(0, 0, dstWidth, dstHeight, pixels);
+        return dst;
+    }
+
+    private static void addRow(float[] columnSum, float left, float right, int window, int sign) {
+        int start = Math.max((int) Math.floor(left), 0);
+        int end = Math.min((int) Math.ceil(right) + window, columnSum.length);
+        int plateauStart = (int) Math.ceil(left) + window;
+        int plateauEnd = (int) Math.floor(right);
+        if (plateauStart > plateauEnd) {
+            plateauStart = plateauEnd = end;
+        }
+        for (int x = start; x < plateauStart; x++) {
+            addOverlap(columnSum, x, left, right, window, sign);
+        }
+        float full = sign * window;
+        for (int x = plateauStart; x <= plateauEnd && x < end; x++) {
+            columnSum[x] += full;
+        }
+        for (int x = Math.max(plateauEnd + 1, plateauStart); x < end; x++) {
+            addOverlap(columnSum, x, left, right, window, sign);
+        }
+    }
+
+    private static void addOverlap(float[] columnSum, int x, float left, float right, int window, int sign) {
+        float overlap = Math.min(x, right) - Math.max(x - window, left);
+        if (overlap > 0) {
+            columnSum[x] += sign * overlap;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.foxesworld.notification.util;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+public class ShadowCache {
+
+    private static ShadowCache instance;
+
+    private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryUsage;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public static synchronized ShadowCache getInstance() {
+        if (instance == null) {
+            instance = new ShadowCache();
+        }
+        return instance;
+    }
+
+    public BufferedImage get(Key key, Supplier<BufferedImage> supplier) {
+        BufferedImage image = get(key);
+        if (image == null) {
+            image = supplier.get();
+            put(key, image);
+        }
+        return image;
+    }
+
+    public synchronized BufferedImage get(Key key) {
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            BufferedImage image = entry.image.get();
+            if (image != null) {
+                hitCount++;
+                return image;
+            }
+            cache.remove(key);
+            memoryUsage -= entry.size;
+        }
+        missCount++;
+        return null;
+    }
+
+    public synchronized void put(Key key, BufferedImage image) {
+        if (image == null) {
+            return;
+        }
+        long size = (long) image.getWidth() * image.getHeight() * 4;
+        Entry old = cache.put(key, new Entry(image, size));
+        if (old != null) {
+            memoryUsage -= old.size;
+        }
+        memoryUsage += size;
+        trim(getMaximumSize());
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        memoryUsage = 0;
+    }
+
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    public synchronized int getSize() {
+        return cache.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void trim(long maximumSize) {
+        Iterator<Map.Entry<Key, Entry>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            boolean cleared = entry.image.get() == null;
+            if (cleared || memoryUsage > maximumSize) {
+                iterator.remove();
+                memoryUsage -= entry.size;
+                if (!cleared) {
+                    evictionCount++;
+                }
+            }
+        }
+    }
+
+    private long getMaximumSize() {
+        return FlatUIUtils.getUIInt("Toast.shadowCacheSize", 4096) * 1024L;
+    }
+
+    public static class Key {
+
+        private final int width;
+        private final int height;
+        private final float arc;
+        private final int shadowSize;
+        private final int color;
+        private final float opacity;
+        private final float scale;
+        private final boolean analytic;
+
+        public Key(int width, int height, float arc, int shadowSize, Color color, float opacity, float scale) {
+            this(width, height, arc, shadowSize, color, opacity, scale, false);
+        }
+
+        public Key(int width, int height, float arc, int shadowSize, Color color, float opacity, float scale, boolean analytic) {
+            this.width = width;
+            this.height = height;
+            this.arc = arc;
+            this.shadowSize = shadowSize;
+            this.color = color.getRGB();
+            this.opacity = opacity;
+            this.scale = scale;
+            this.analytic = analytic;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width && height == key.height && shadowSize == key.shadowSize && color == key.color && analytic == key.analytic
+                    && Float.compare(arc, key.arc) == 0 && Float.compare(opacity, key.opacity) == 0 && Float.compare(scale, key.scale) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(width, height, arc, shadowSize, color, opacity, scale, analytic);
+        }
+    }
+
+    private static class Entry {
+
+        private final SoftReference<BufferedImage> image;
+        private final long size;
+
+        private Entry(BufferedImage image, long size) {
+            this.image = new SoftReference<>(image);
+            this.size = size;
+        }
+    }
+}
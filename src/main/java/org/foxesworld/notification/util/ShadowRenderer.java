@@ -4,12 +4,26 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ShadowRenderer {
 
+    private static final int MIN_BAND_SIZE = 16;
+    private static final int MAX_SCRATCH_SIZE = 1 << 20;
+    private static final int MAX_LOOKUP_TABLES = 64;
+
+    private static final Map<Long, int[]> lookupTables = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
     private int size = 5;
     private float opacity = 0.5f;
     private Color color = Color.BLACK;
+    private int parallelThreshold = -1;
+    private boolean rowMajor = true;
 
     public ShadowRenderer() {
         this(5, 0.5f, Color.BLACK);
@@ -33,109 +47,373 @@ public class ShadowRenderer {
         return size;
     }
 
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public boolean isRowMajor() {
+        return rowMajor;
+    }
+
+    public void setRowMajor(boolean rowMajor) {
+        this.rowMajor = rowMajor;
+    }
+
     public BufferedImage createShadow(Shape shape) {
+        return createShadow(shape, null);
+    }
+
+    public BufferedImage createShadow(Shape shape, BufferedImage dst) {
         Rectangle rec = shape.getBounds();
-        BufferedImage img = new BufferedImage(rec.width, rec.height, BufferedImage.TYPE_INT_ARGB);
+        Scratch scratch = ShadowRenderer.scratch.get();
+        BufferedImage img = scratch.getImage(rec.width, rec.height);
         Graphics2D g2 = img.createGraphics();
+        g2.setComposite(AlphaComposite.Clear);
+        g2.fillRect(0, 0, rec.width, rec.height);
+        g2.setComposite(AlphaComposite.SrcOver);
         g2.setColor(Color.BLACK);
         g2.translate(-rec.x, -rec.y);
         g2.fill(shape);
         g2.dispose();
-        return createShadow(img);
+        return createShadow(img, rec.width, rec.height, dst);
     }
 
     public BufferedImage createShadow(final BufferedImage image) {
+        return createShadow(image, null);
+    }
+
+    public BufferedImage createShadow(final BufferedImage image, BufferedImage dst) {
+        return createShadow(image, image.getWidth(), image.getHeight(), dst);
+    }
+
+    private BufferedImage createShadow(BufferedImage image, int srcWidth, int srcHeight, BufferedImage dst) {
         int shadowSize = size * 2;
-        int srcWidth = image.getWidth();
-        int srcHeight = image.getHeight();
         int dstWidth = srcWidth + shadowSize;
         int dstHeight = srcHeight + shadowSize;
-        int left = size;
-        int right = shadowSize - left;
-        int yStop = dstHeight - right;
-        int shadowRgb = color.getRGB() & 0x00FFFFFF;
-        int[] aHistory = new int[shadowSize];
-        int historyIdx;
-        int aSum;
-        BufferedImage dst = new BufferedImage(dstWidth, dstHeight,
-                BufferedImage.TYPE_INT_ARGB);
-        int[] dstBuffer = new int[dstWidth * dstHeight];
-        int[] srcBuffer = new int[srcWidth * srcHeight];
+        if (dst == null || dst.getWidth() != dstWidth || dst.getHeight() != dstHeight || dst.getType() != BufferedImage.TYPE_INT_ARGB) {
+            dst = new BufferedImage(dstWidth, dstHeight,
+                    BufferedImage.TYPE_INT_ARGB);
+        }
+        Scratch scratch = ShadowRenderer.scratch.get();
+        int[] dstBuffer = scratch.getDstBuffer(dstWidth * dstHeight);
+        int[] srcBuffer = scratch.getSrcBuffer(srcWidth * srcHeight);
         getPixels(image, 0, 0, srcWidth, srcHeight, srcBuffer);
-        int lastPixelOffset = right * dstWidth;
-        float hSumDivider = 1.0f / shadowSize;
-        float vSumDivider = opacity / shadowSize;
-        int[] hSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < hSumLookup.length; i++) {
-            hSumLookup[i] = (int) (i * hSumDivider);
-        }
-        int[] vSumLookup = new int[256 * shadowSize];
-        for (int i = 0; i < vSumLookup.length; i++) {
-            vSumLookup[i] = (int) (i * vSumDivider);
-        }
-        int srcOffset;
-        for (int srcY = 0, dstOffset = left * dstWidth; srcY < srcHeight; srcY++) {
-            for (historyIdx = 0; historyIdx < shadowSize; ) {
-                aHistory[historyIdx++] = 0;
-            }
-            aSum = 0;
-            historyIdx = 0;
-            srcOffset = srcY * srcWidth;
-            for (int srcX = 0; srcX < srcWidth; srcX++) {
-                int a = hSumLookup[aSum];
-                dstBuffer[dstOffset++] = a << 24;
-                aSum -= aHistory[historyIdx];
-                a = srcBuffer[srcOffset + srcX] >>> 24;
-                aHistory[historyIdx] = a;
-                aSum += a;
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
-                }
+        Arrays.fill(dstBuffer, 0, size * dstWidth, 0);
+        Arrays.fill(dstBuffer, (size + srcHeight) * dstWidth, dstWidth * dstHeight, 0);
+        int[] hSumLookup = getLookupTable(shadowSize, 1.0f);
+        int[] vSumLookup = getLookupTable(shadowSize, opacity);
+        Blur blur = new Blur(srcBuffer, srcWidth, srcHeight, dstBuffer, dstWidth, dstHeight, hSumLookup, vSumLookup);
+        BandOperation horizontal = rowMajor ? blur::horizontalPrefix : blur::horizontal;
+        BandOperation vertical = rowMajor ? blur::verticalRows : blur::vertical;
+        if (isParallel(dstWidth, dstHeight)) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            pool.invoke(new BandTask(0, srcHeight, getBandSize(srcHeight, pool), horizontal));
+            pool.invoke(new BandTask(0, dstWidth, getBandSize(dstWidth, pool), vertical));
+        } else {
+            horizontal.apply(0, srcHeight);
+            vertical.apply(0, dstWidth);
+        }
+        setPixels(dst, 0, 0, dstWidth, dstHeight, dstBuffer);
+        return dst;
+    }
+
+    private static int[] getLookupTable(int shadowSize, float opacity) {
+        long key = (long) shadowSize << 32 | Float.floatToIntBits(opacity) & 0xFFFFFFFFL;
+        int[] lookup = lookupTables.get(key);
+        if (lookup == null) {
+            float divider = opacity / shadowSize;
+            lookup = new int[256 * shadowSize];
+            for (int i = 0; i < lookup.length; i++) {
+                lookup[i] = (int) (i * divider);
             }
-            for (int i = 0; i < shadowSize; i++) {
-                int a = hSumLookup[aSum];
-                dstBuffer[dstOffset++] = a << 24;
-                aSum -= aHistory[historyIdx];
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+            if (lookupTables.size() >= MAX_LOOKUP_TABLES) {
+                lookupTables.clear();
+            }
+            lookupTables.put(key, lookup);
+        }
+        return lookup;
+    }
+
+    private boolean isParallel(int width, int height) {
+        return parallelThreshold >= 0 && (long) width * height >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    private int getBandSize(int length, ForkJoinPool pool) {
+        return Math.max(MIN_BAND_SIZE, length / (pool.getParallelism() * 4));
+    }
+
+    private class Blur {
+
+        private final int[] srcBuffer;
+        private final int srcWidth;
+        private final int srcHeight;
+        private final int[] dstBuffer;
+        private final int dstWidth;
+        private final int dstHeight;
+        private final int[] hSumLookup;
+        private final int[] vSumLookup;
+
+        private Blur(int[] srcBuffer, int srcWidth, int srcHeight, int[] dstBuffer, int dstWidth, int dstHeight, int[] hSumLookup, int[] vSumLookup) {
+            this.srcBuffer = srcBuffer;
+            this.srcWidth = srcWidth;
+            this.srcHeight = srcHeight;
+            this.dstBuffer = dstBuffer;
+            this.dstWidth = dstWidth;
+            this.dstHeight = dstHeight;
+            this.hSumLookup = hSumLookup;
+            this.vSumLookup = vSumLookup;
+        }
+
+        private void horizontal(int rowStart, int rowEnd) {
+            int shadowSize = size * 2;
+            int left = size;
+            int[] aHistory = scratch.get().getHistory(shadowSize);
+            int historyIdx;
+            int aSum;
+            int srcOffset;
+            for (int srcY = rowStart, dstOffset = (left + rowStart) * dstWidth; srcY < rowEnd; srcY++) {
+                for (historyIdx = 0; historyIdx < shadowSize; ) {
+                    aHistory[historyIdx++] = 0;
+                }
+                aSum = 0;
+                historyIdx = 0;
+                srcOffset = srcY * srcWidth;
+                for (int srcX = 0; srcX < srcWidth; srcX++) {
+                    int a = hSumLookup[aSum];
+                    dstBuffer[dstOffset++] = a << 24;
+                    aSum -= aHistory[historyIdx];
+                    a = srcBuffer[srcOffset + srcX] >>> 24;
+                    aHistory[historyIdx] = a;
+                    aSum += a;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
+                }
+                for (int i = 0; i < shadowSize; i++) {
+                    int a = hSumLookup[aSum];
+                    dstBuffer[dstOffset++] = a << 24;
+                    aSum -= aHistory[historyIdx];
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
                 }
             }
         }
 
-        for (int x = 0, bufferOffset = 0; x < dstWidth; x++, bufferOffset = x) {
-            aSum = 0;
-            for (historyIdx = 0; historyIdx < left; ) {
-                aHistory[historyIdx++] = 0;
+        private void vertical(int columnStart, int columnEnd) {
+            int shadowSize = size * 2;
+            int left = size;
+            int right = shadowSize - left;
+            int yStop = dstHeight - right;
+            int lastPixelOffset = right * dstWidth;
+            int shadowRgb = color.getRGB() & 0x00FFFFFF;
+            int[] aHistory = scratch.get().getHistory(shadowSize);
+            int historyIdx;
+            int aSum;
+            for (int x = columnStart, bufferOffset = x; x < columnEnd; x++, bufferOffset = x) {
+                aSum = 0;
+                for (historyIdx = 0; historyIdx < left; ) {
+                    aHistory[historyIdx++] = 0;
+                }
+                for (int y = 0; y < right; y++, bufferOffset += dstWidth) {
+                    int a = dstBuffer[bufferOffset] >>> 24;
+                    aHistory[historyIdx++] = a;
+                    aSum += a;
+                }
+                bufferOffset = x;
+                historyIdx = 0;
+                for (int y = 0; y < yStop; y++, bufferOffset += dstWidth) {
+                    int a = vSumLookup[aSum];
+                    dstBuffer[bufferOffset] = a << 24 | shadowRgb;
+                    aSum -= aHistory[historyIdx];
+                    a = dstBuffer[bufferOffset + lastPixelOffset] >>> 24;
+                    aHistory[historyIdx] = a;
+                    aSum += a;
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
+                }
+                for (int y = yStop; y < dstHeight; y++, bufferOffset += dstWidth) {
+                    int a = vSumLookup[aSum];
+                    dstBuffer[bufferOffset] = a << 24 | shadowRgb;
+                    aSum -= aHistory[historyIdx];
+                    if (++historyIdx >= shadowSize) {
+                        historyIdx -= shadowSize;
+                    }
+                }
             }
-            for (int y = 0; y < right; y++, bufferOffset += dstWidth) {
-                int a = dstBuffer[bufferOffset] >>> 24;
-                aHistory[historyIdx++] = a;
-                aSum += a;
+        }
+
+        // same sums as horizontal(), computed as differences of a running prefix so the per-pixel loop has no carried dependency
+        private void horizontalPrefix(int rowStart, int rowEnd) {
+            int shadowSize = size * 2;
+            int left = size;
+            int[] prefix = scratch.get().getPrefix(dstWidth + shadowSize + 1);
+            Arrays.fill(prefix, 0, shadowSize + 1, 0);
+            for (int srcY = rowStart; srcY < rowEnd; srcY++) {
+                int srcOffset = srcY * srcWidth;
+                int dstOffset = (left + srcY) * dstWidth;
+                int sum = 0;
+                for (int srcX = 0; srcX < srcWidth; srcX++) {
+                    sum += srcBuffer[srcOffset + srcX] >>> 24;
+                    prefix[shadowSize + 1 + srcX] = sum;
+                }
+                Arrays.fill(prefix, shadowSize + 1 + srcWidth, dstWidth + shadowSize + 1, sum);
+                for (int x = 0; x < dstWidth; x++) {
+                    dstBuffer[dstOffset + x] = hSumLookup[prefix[x + shadowSize] - prefix[x]] << 24;
+                }
             }
-            bufferOffset = x;
-            historyIdx = 0;
-            for (int y = 0; y < yStop; y++, bufferOffset += dstWidth) {
-                int a = vSumLookup[aSum];
-                dstBuffer[bufferOffset] = a << 24 | shadowRgb;
-                aSum -= aHistory[historyIdx];
-                a = dstBuffer[bufferOffset + lastPixelOffset] >>> 24;
-                aHistory[historyIdx] = a;
-                aSum += a;
-                if (++historyIdx >= shadowSize) {
-                    historyIdx -= shadowSize;
+        }
+
+        // same sums as vertical(), advanced one row at a time for every column of the band so the memory is read in row order
+        private void verticalRows(int columnStart, int columnEnd) {
+            int shadowSize = size * 2;
+            int left = size;
+            int right = shadowSize - left;
+            int yStop = dstHeight - right;
+            int lastPixelOffset = right * dstWidth;
+            int shadowRgb = color.getRGB() & 0x00FFFFFF;
+            int width = columnEnd - columnStart;
+            Scratch scratch = ShadowRenderer.scratch.get();
+            int[] aSum = scratch.getSums(width);
+            int[] aHistory = scratch.getHistory(shadowSize * width);
+            Arrays.fill(aSum, 0, width, 0);
+            Arrays.fill(aHistory, 0, left * width, 0);
+            for (int y = 0; y < right; y++) {
+                int offset = y * dstWidth + columnStart;
+                int historyOffset = (left + y) * width;
+                for (int x = 0; x < width; x++) {
+                    int a = dstBuffer[offset + x] >>> 24;
+                    aHistory[historyOffset + x] = a;
+                    aSum[x] += a;
                 }
             }
-            for (int y = yStop; y < dstHeight; y++, bufferOffset += dstWidth) {
-                int a = vSumLookup[aSum];
-                dstBuffer[bufferOffset] = a << 24 | shadowRgb;
-                aSum -= aHistory[historyIdx];
+            int historyIdx = 0;
+            for (int y = 0; y < dstHeight; y++) {
+                int offset = y * dstWidth + columnStart;
+                int historyOffset = historyIdx * width;
+                for (int x = 0; x < width; x++) {
+                    dstBuffer[offset + x] = vSumLookup[aSum[x]] << 24 | shadowRgb;
+                }
+                if (y < yStop) {
+                    int nextOffset = offset + lastPixelOffset;
+                    for (int x = 0; x < width; x++) {
+                        int a = dstBuffer[nextOffset + x] >>> 24;
+                        aSum[x] += a - aHistory[historyOffset + x];
+                        aHistory[historyOffset + x] = a;
+                    }
+                } else {
+                    for (int x = 0; x < width; x++) {
+                        aSum[x] -= aHistory[historyOffset + x];
+                    }
+                }
                 if (++historyIdx >= shadowSize) {
                     historyIdx -= shadowSize;
                 }
             }
         }
-        setPixels(dst, 0, 0, dstWidth, dstHeight, dstBuffer);
-        return dst;
+    }
+
+    private static class Scratch {
+
+        private int[] srcBuffer = new int[0];
+        private int[] dstBuffer = new int[0];
+        private int[] history = new int[0];
+        private int[] sums = new int[0];
+        private int[] prefix = new int[0];
+        private BufferedImage image;
+
+        private int[] getSrcBuffer(int length) {
+            if (srcBuffer.length >= length) {
+                return srcBuffer;
+            }
+            int[] buffer = new int[length];
+            if (length <= MAX_SCRATCH_SIZE) {
+                srcBuffer = buffer;
+            }
+            return buffer;
+        }
+
+        private int[] getDstBuffer(int length) {
+            if (dstBuffer.length >= length) {
+                return dstBuffer;
+            }
+            int[] buffer = new int[length];
+            if (length <= MAX_SCRATCH_SIZE) {
+                dstBuffer = buffer;
+            }
+            return buffer;
+        }
+
+        private int[] getHistory(int length) {
+            if (history.length < length) {
+                history = new int[length];
+            }
+            return history;
+        }
+
+        private int[] getSums(int length) {
+            if (sums.length < length) {
+                sums = new int[length];
+            }
+            return sums;
+        }
+
+        private int[] getPrefix(int length) {
+            if (prefix.length < length) {
+                prefix = new int[length];
+            }
+            return prefix;
+        }
+
+        private BufferedImage getImage(int width, int height) {
+            if (image != null && image.getWidth() >= width && image.getHeight() >= height) {
+                return image;
+            }
+            if (image != null) {
+                width = Math.max(width, image.getWidth());
+                height = Math.max(height, image.getHeight());
+            }
+            BufferedImage img = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+            if ((long) width * height <= MAX_SCRATCH_SIZE) {
+                image = img;
+            }
+            return img;
+        }
+    }
+
+    private interface BandOperation {
+
+        void apply(int start, int end);
+    }
+
+    private static class BandTask extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+        private final int bandSize;
+        private final BandOperation operation;
+
+        private BandTask(int start, int end, int bandSize, BandOperation operation) {
+            this.start = start;
+            this.end = end;
+            this.bandSize = bandSize;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= bandSize) {
+                operation.apply(start, end);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new BandTask(start, middle, bandSize, operation), new BandTask(middle, end, bandSize, operation));
+            }
+        }
     }
 
     private int[] getPixels(BufferedImage img, int x, int y, int w, int h, int[] pixels) {
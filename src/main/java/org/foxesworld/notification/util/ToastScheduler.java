@@ -0,0 +1,49 @@
+package org.foxesworld.notification.util;
+
+import javax.swing.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class ToastScheduler {
+
+    private static ToastScheduler instance;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public static synchronized ToastScheduler getInstance() {
+        if (instance == null) {
+            instance = new ToastScheduler();
+        }
+        return instance;
+    }
+
+    private ToastScheduler() {
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Toast-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public ScheduledFuture<?> schedule(Runnable runnable, long delay) {
+        return executor.schedule(() -> SwingUtilities.invokeLater(runnable), Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    public ScheduledFuture<?> reschedule(ScheduledFuture<?> future, Runnable runnable, long delay) {
+        cancel(future);
+        return schedule(runnable, delay);
+    }
+
+    public void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    public int getPendingCount() {
+        return executor.getQueue().size();
+    }
+}
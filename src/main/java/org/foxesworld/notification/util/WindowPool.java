@@ -0,0 +1,192 @@
+package org.foxesworld.notification.util;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+public class WindowPool {
+
+    private static WindowPool instance;
+
+    private final Map<Window, Deque<PooledWindow>> pools = new HashMap<>();
+    private ScheduledFuture<?> evictTask;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public static synchronized WindowPool getInstance() {
+        if (instance == null) {
+            instance = new WindowPool();
+        }
+        return instance;
+    }
+
+    public synchronized JWindow acquire(Window owner) {
+        Deque<PooledWindow> pool = pools.get(owner);
+        if (pool != null) {
+            PooledWindow pooled = pool.pollFirst();
+            if (pool.isEmpty()) {
+                pools.remove(owner);
+            }
+            if (pooled != null) {
+                hitCount++;
+                return pooled.window;
+            }
+        }
+        missCount++;
+        return createWindow(owner);
+    }
+
+    public synchronized void release(JWindow window) {
+        window.setVisible(false);
+        Window owner = window.getOwner();
+        int size = getPoolSize();
+        Deque<PooledWindow> pool = pools.get(owner);
+        if (size <= 0 || owner != null && !owner.isDisplayable() || pool != null && pool.size() >= size) {
+            window.dispose();
+            return;
+        }
+        resetWindow(window);
+        if (pool == null) {
+            pool = new ArrayDeque<>();
+            pools.put(owner, pool);
+        }
+        pool.addFirst(new PooledWindow(window, System.currentTimeMillis()));
+        scheduleEviction();
+    }
+
+    public void prepare(Window owner) {
+        prepare(owner, FlatUIUtils.getUIInt("Toast.windowPoolPrefill", 2));
+    }
+
+    public void prepare(Window owner, int count) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> prepare(owner, count));
+            return;
+        }
+        synchronized (this) {
+            Deque<PooledWindow> pool = pools.get(owner);
+            int current = pool == null ? 0 : pool.size();
+            int target = Math.min(count, getPoolSize());
+            if (current >= target) {
+                return;
+            }
+            if (pool == null) {
+                pool = new ArrayDeque<>();
+                pools.put(owner, pool);
+            }
+            long time = System.currentTimeMillis();
+            for (int i = current; i < target; i++) {
+                JWindow window = createWindow(owner);
+                window.addNotify();
+                pool.addLast(new PooledWindow(window, time));
+            }
+            scheduleEviction();
+        }
+    }
+
+    public synchronized void evict(long idleTimeout) {
+        long time = System.currentTimeMillis();
+        Iterator<Map.Entry<Window, Deque<PooledWindow>>> iterator = pools.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Window, Deque<PooledWindow>> entry = iterator.next();
+            Window owner = entry.getKey();
+            Deque<PooledWindow> pool = entry.getValue();
+            boolean ownerDisposed = owner != null && !owner.isDisplayable();
+            Iterator<PooledWindow> it = pool.iterator();
+            while (it.hasNext()) {
+                PooledWindow pooled = it.next();
+                if (ownerDisposed || idleTimeout >= 0 && time - pooled.releaseTime >= idleTimeout) {
+                    it.remove();
+                    pooled.window.dispose();
+                    evictionCount++;
+                }
+            }
+            if (pool.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        evict(0);
+        ToastScheduler.getInstance().cancel(evictTask);
+        evictTask = null;
+    }
+
+    public synchronized int getPooledCount() {
+        int count = 0;
+        for (Deque<PooledWindow> pool : pools.values()) {
+            count += pool.size();
+        }
+        return count;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void scheduleEviction() {
+        long idleTimeout = getIdleTimeout();
+        if (evictTask == null && idleTimeout >= 0) {
+            evictTask = ToastScheduler.getInstance().schedule(this::evictIdle, idleTimeout);
+        }
+    }
+
+    private synchronized void evictIdle() {
+        evictTask = null;
+        evict(getIdleTimeout());
+        if (!pools.isEmpty()) {
+            scheduleEviction();
+        }
+    }
+
+    private JWindow createWindow(Window owner) {
+        JWindow window = new JWindow(owner);
+        window.setBackground(new Color(0, 0, 0, 0));
+        window.setFocusableWindowState(false);
+        return window;
+    }
+
+    private void resetWindow(JWindow window) {
+        JPanel contentPane = new JPanel();
+        contentPane.setOpaque(false);
+        window.setContentPane(contentPane);
+        window.setBackground(new Color(0, 0, 0, 0));
+        window.setOpacity(1f);
+    }
+
+    private int getPoolSize() {
+        return FlatUIUtils.getUIInt("Toast.windowPoolSize", 8);
+    }
+
+    private long getIdleTimeout() {
+        return FlatUIUtils.getUIInt("Toast.windowPoolIdleTimeout", 30000);
+    }
+
+    private static class PooledWindow {
+
+        private final JWindow window;
+        private final long releaseTime;
+
+        private PooledWindow(JWindow window, long releaseTime) {
+            this.window = window;
+            this.releaseTime = releaseTime;
+        }
+    }
+}
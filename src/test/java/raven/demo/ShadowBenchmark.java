@@ -0,0 +1,78 @@
+package raven.demo;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+import org.foxesworld.notification.util.ShadowRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class ShadowBenchmark {
+
+    private static final int[][] SIZES = {
+            {120, 45, 6},
+            {300, 60, 6},
+            {400, 120, 12},
+            {800, 600, 12},
+            {1600, 1200, 24}
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        for (int[] size : SIZES) {
+            BufferedImage shape = createShape(size[0], size[1]);
+            ShadowRenderer scalar = createRenderer(size[2], false);
+            ShadowRenderer rowMajor = createRenderer(size[2], true);
+            BufferedImage expected = scalar.createShadow(shape);
+            BufferedImage actual = rowMajor.createShadow(shape);
+            if (!equals(expected, actual)) {
+                throw new AssertionError("row-major shadow differs from the scalar shadow at " + size[0] + "x" + size[1] + " size " + size[2]);
+            }
+            int count = Math.max(10, (int) (iterations * 300L * 60 / ((long) size[0] * size[1])));
+            double scalarTime = measure(scalar, shape, expected, count);
+            double rowMajorTime = measure(rowMajor, shape, actual, count);
+            System.out.printf("%4dx%-4d size %2d  scalar %8.1f us  row-major %8.1f us  speedup %4.2fx%n",
+                    size[0], size[1], size[2], scalarTime, rowMajorTime, scalarTime / rowMajorTime);
+        }
+    }
+
+    private static ShadowRenderer createRenderer(int size, boolean rowMajor) {
+        ShadowRenderer renderer = new ShadowRenderer(size, 0.3f, new Color(20, 30, 40));
+        renderer.setRowMajor(rowMajor);
+        return renderer;
+    }
+
+    private static BufferedImage createShape(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        FlatUIUtils.setRenderingHints(g2);
+        g2.setColor(Color.BLACK);
+        g2.fill(FlatUIUtils.createRoundRectanglePath(0, 0, width, height, 14, 14, 14, 14));
+        g2.dispose();
+        return image;
+    }
+
+    private static double measure(ShadowRenderer renderer, BufferedImage shape, BufferedImage dst, int count) {
+        for (int i = 0; i < count; i++) {
+            renderer.createShadow(shape, dst);
+        }
+        long time = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            renderer.createShadow(shape, dst);
+        }
+        return (System.nanoTime() - time) / 1000.0 / count;
+    }
+
+    private static boolean equals(BufferedImage expected, BufferedImage actual) {
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return false;
+        }
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
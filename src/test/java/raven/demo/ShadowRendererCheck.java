@@ -0,0 +1,86 @@
+package raven.demo;
+
+import com.formdev.flatlaf.ui.FlatUIUtils;
+import org.foxesworld.notification.util.ShadowRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+public class ShadowRendererCheck {
+
+    private static final int[] SHADOW_SIZES = {1, 2, 3, 5, 6, 12, 24};
+    private static final int[][] SHAPE_SIZES = {
+            {1, 1},
+            {7, 3},
+            {33, 17},
+            {120, 45},
+            {301, 61},
+            {640, 480}
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        int count = 0;
+        for (int[] shapeSize : SHAPE_SIZES) {
+            BufferedImage roundRect = createShape(shapeSize[0], shapeSize[1]);
+            BufferedImage noise = createNoise(shapeSize[0], shapeSize[1], random);
+            for (int size : SHADOW_SIZES) {
+                check("round rect", roundRect, size);
+                check("noise", noise, size);
+                count += 2;
+            }
+        }
+        System.out.println(count + " cases, row-major and parallel shadows are identical to the scalar shadow");
+    }
+
+    private static void check(String name, BufferedImage shape, int size) {
+        BufferedImage expected = createRenderer(size, false, -1).createShadow(shape);
+        assertEquals(name + " row-major", shape, size, expected, createRenderer(size, true, -1).createShadow(shape));
+        assertEquals(name + " parallel", shape, size, expected, createRenderer(size, false, 0).createShadow(shape));
+        assertEquals(name + " row-major parallel", shape, size, expected, createRenderer(size, true, 0).createShadow(shape));
+    }
+
+    private static ShadowRenderer createRenderer(int size, boolean rowMajor, int parallelThreshold) {
+        ShadowRenderer renderer = new ShadowRenderer(size, 0.3f, new Color(20, 30, 40));
+        renderer.setRowMajor(rowMajor);
+        renderer.setParallelThreshold(parallelThreshold);
+        return renderer;
+    }
+
+    private static BufferedImage createShape(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        FlatUIUtils.setRenderingHints(g2);
+        g2.setColor(Color.BLACK);
+        g2.fill(FlatUIUtils.createRoundRectanglePath(0, 0, width, height, 14, 14, 14, 14));
+        g2.dispose();
+        return image;
+    }
+
+    private static BufferedImage createNoise(int width, int height, Random random) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(256) << 24);
+            }
+        }
+        return image;
+    }
+
+    private static void assertEquals(String name, BufferedImage shape, int size, BufferedImage expected, BufferedImage actual) {
+        String message = name + " " + shape.getWidth() + "x" + shape.getHeight() + " size " + size;
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            throw new AssertionError(message + ": size " + actual.getWidth() + "x" + actual.getHeight()
+                    + " instead of " + expected.getWidth() + "x" + expected.getHeight());
+        }
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    throw new AssertionError(message + ": pixel " + x + "," + y + " is " + Integer.toHexString(actual.getRGB(x, y))
+                            + " instead of " + Integer.toHexString(expected.getRGB(x, y)));
+                }
+            }
+        }
+    }
+}